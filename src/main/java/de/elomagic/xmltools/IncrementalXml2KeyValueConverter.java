@@ -0,0 +1,299 @@
+/*
+ * XML Tools
+ * Copyright (c) 2023-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.xmltools;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.events.EventListener;
+import org.w3c.dom.events.EventTarget;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+
+/**
+ * Keeps the key values of an in memory XML {@link Document} up to date by converting only the changed subtrees.
+ * <p>
+ * Changed nodes must be reported by {@link #markDirty(Node)} or are tracked by DOM mutation events, when enabled by
+ * {@link #setTrackMutations(boolean)}. When the element names of a parent's children change, for example by adding,
+ * removing or renaming a child element, the parent must be marked. On {@link #getKeyValues()} the marked subtrees will
+ * be converted again. When the repetition indexes of equal named siblings have changed, the parent subtree will be
+ * converted, so the sibling group is indexed again.
+ * <p>
+ * To detect changed indexes, the key, the name and whether it has elements inside are remembered of every element.
+ * The indexes of the siblings are only computed again, when the name of a changed element or whether it has elements
+ * inside differs, so changing the text or the attributes of an element costs the size of its subtree. Instances are
+ * not thread safe.
+ */
+public class IncrementalXml2KeyValueConverter {
+
+    private static final String SUBTREE_MODIFIED = "DOMSubtreeModified";
+
+    private final Xml2KeyValueConverter converter;
+    private final Document document;
+    private final NameTable names;
+    private final Set<Node> dirtyNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Map<Element, ElementState> elementStates = new WeakHashMap<>();
+    private final EventListener mutationListener = event -> markDirty((Node)event.getTarget());
+    private final TreeMap<String, String> keyValues = new TreeMap<>();
+    private final SortedMap<String, String> keyValuesView = Collections.unmodifiableSortedMap(keyValues);
+    private boolean converted;
+    private Element root;
+    private boolean trackMutations;
+
+    /**
+     * Creates an incremental converter of a document.
+     *
+     * @param converter Converter which defines the format of the keys
+     * @param document Document to convert
+     */
+    public IncrementalXml2KeyValueConverter(@NotNull Xml2KeyValueConverter converter, @NotNull Document document) {
+        this.converter = converter;
+        this.document = document;
+        this.names = converter.getNameTable() == null ? new NameTable() : converter.getNameTable();
+    }
+
+    /**
+     * Returns tracking of changes by DOM mutation events.
+     * <p>
+     * Default false
+     *
+     * @return When true, changes will be tracked by DOM mutation events
+     */
+    public boolean isTrackMutations() {
+        return trackMutations;
+    }
+
+    /**
+     * Set tracking of changes by DOM mutation events.
+     * <p>
+     * Note, mutation events slow down every change of the document.
+     *
+     * @param trackMutations When true, changes will be tracked by DOM mutation events
+     * @return This instance
+     * @throws UnsupportedOperationException Thrown when the DOM implementation doesn't support mutation events
+     */
+    public IncrementalXml2KeyValueConverter setTrackMutations(boolean trackMutations) {
+        if (this.trackMutations == trackMutations) {
+            return this;
+        } else if (!(document instanceof EventTarget target)) {
+            throw new UnsupportedOperationException("DOM implementation doesn't support mutation events.");
+        } else if (trackMutations) {
+            target.addEventListener(SUBTREE_MODIFIED, mutationListener, false);
+        } else {
+            target.removeEventListener(SUBTREE_MODIFIED, mutationListener, false);
+        }
+
+        this.trackMutations = trackMutations;
+        return this;
+    }
+
+    /**
+     * Marks a node as changed.
+     * <p>
+     * The subtree of the node or, when the node is not an element, of its parent element will be converted again.
+     *
+     * @param node Changed node
+     * @return This instance
+     */
+    public IncrementalXml2KeyValueConverter markDirty(@NotNull Node node) {
+        dirtyNodes.add(node);
+        return this;
+    }
+
+    /**
+     * Returns the key values of the document.
+     * <p>
+     * On first call the whole document will be converted, later only the subtrees of the changed nodes.
+     * <p>
+     * Note, the result is a live view of the key values and will be updated by later calls of this method. Copy it to
+     * keep the key values of the current state of the document.
+     *
+     * @return Unmodifiable sorted live view but never null
+     */
+    @NotNull
+    public SortedMap<String, String> getKeyValues() {
+
+        if (!converted || root != document.getDocumentElement()) {
+            convertAll();
+        } else if (!dirtyNodes.isEmpty()) {
+            convertDirty();
+        }
+
+        dirtyNodes.clear();
+
+        return keyValuesView;
+    }
+
+    private void convertAll() {
+        keyValues.clear();
+        elementStates.clear();
+        converted = true;
+        root = document.getDocumentElement();
+
+        if (root != null) {
+            convert(root, names.canonicalize(root.getNodeName()));
+        }
+    }
+
+    private void convertDirty() {
+
+        Set<Element> targets = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Node node : dirtyNodes) {
+            Element element = toAttachedElement(node);
+
+            if (element == null) {
+                continue;
+            } else if (element == root) {
+                convertAll();
+                return;
+            }
+
+            targets.add(resolveTarget(element));
+        }
+
+        if (targets.contains(root)) {
+            convertAll();
+            return;
+        }
+
+        // Ignore targets, which are part of the subtree of another target
+        List<Element> subtrees = new ArrayList<>();
+        for (Element target : targets) {
+            if (!hasAncestorIn(target, targets)) {
+                subtrees.add(target);
+            }
+        }
+
+        for (Element subtree : subtrees) {
+            String key = elementStates.get(subtree).key();
+
+            keyValues.remove(key);
+            String prefix = converter.addKeyPrefix(key, "");
+            keyValues.subMap(prefix, prefix + Character.MAX_VALUE).clear();
+
+            convert(subtree, key);
+        }
+    }
+
+    private void convert(@NotNull Element element, @NotNull String key) {
+        putState(element, key);
+
+        if (element == root || converter.hasChildElements(element)) {
+            converter.parseChildElements(element, key, keyValues::put, names, this::putState);
+        } else {
+            keyValues.put(key, element.getTextContent());
+        }
+    }
+
+    private void putState(@NotNull Element element, @NotNull String key) {
+        elementStates.put(element, new ElementState(key, names.canonicalize(element.getNodeName()), converter.hasChildElements(element)));
+    }
+
+    /**
+     * Returns the element whose subtree must be converted. When the keys of the equal named siblings of the element
+     * have changed, the parent must be converted.
+     */
+    @NotNull
+    private Element resolveTarget(@NotNull Element element) {
+
+        Element target = element;
+        while (target != root) {
+            Element parent = (Element)target.getParentNode();
+            ElementState state = elementStates.get(target);
+            ElementState parentState = elementStates.get(parent);
+
+            if (state != null && parentState != null && siblingKeysUnchanged(target, state, parent, parentState.key())) {
+                return target;
+            }
+
+            target = parent;
+        }
+
+        return target;
+    }
+
+    /**
+     * Checks whether the remembered keys of the element and of its equal named siblings are still valid.
+     * <p>
+     * The key of an element only depends on the names of its siblings and whether they have elements inside. Changed
+     * children are reported by marking the parent, so only the groups of the old and new name of the element itself
+     * must be compared, when its name or whether it has elements inside differs.
+     */
+    private boolean siblingKeysUnchanged(@NotNull Element element, @NotNull ElementState state, @NotNull Element parent, @NotNull String parentKey) {
+        String name = names.canonicalize(element.getNodeName());
+        if (name == state.name() && converter.hasChildElements(element) == state.hasChildElements()) {
+            return true;
+        }
+
+        for (Map.Entry<Element, String> e : converter.childKeys(parent, names).entrySet()) {
+            String siblingName = names.canonicalize(e.getKey().getNodeName());
+            if (siblingName != name && siblingName != state.name()) {
+                continue;
+            }
+
+            ElementState sibling = elementStates.get(e.getKey());
+            if (sibling == null || !converter.addKeyPrefix(parentKey, e.getValue()).equals(sibling.key())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Remembered key of an element with the facts the repetition indexes of its siblings depend on.
+     */
+    private record ElementState(@NotNull String key, @NotNull String name, boolean hasChildElements) {
+    }
+
+    @Nullable
+    private Element toAttachedElement(@NotNull Node node) {
+        Node current = node instanceof Attr attr ? attr.getOwnerElement() : node;
+        while (current != null && current.getNodeType() != Node.ELEMENT_NODE) {
+            current = current.getParentNode();
+        }
+
+        Node ancestor = current;
+        while (ancestor != null && ancestor != root) {
+            ancestor = ancestor.getParentNode();
+        }
+
+        return ancestor == null ? null : (Element)current;
+    }
+
+    private static boolean hasAncestorIn(@NotNull Element element, @NotNull Set<Element> elements) {
+        for (Node parent = element.getParentNode(); parent != null; parent = parent.getParentNode()) {
+            if (parent instanceof Element e && elements.contains(e)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
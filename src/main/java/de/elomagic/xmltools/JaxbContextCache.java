@@ -0,0 +1,87 @@
+/*
+ * XML Tools
+ * Copyright (c) 2023-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.xmltools;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Cache of the {@link JAXBContext} of every class which was read or written.
+ * <p>
+ * Contexts are thread safe and expensive to create. They are bound to their classes, so they don't prevent class
+ * loaders from being unloaded.
+ */
+final class JaxbContextCache {
+
+    private static final ClassValue<Entry> CONTEXTS = new ClassValue<>() {
+        @Override
+        protected Entry computeValue(Class<?> type) {
+            return new Entry();
+        }
+    };
+
+    /**
+     * Lazily created context of a class.
+     */
+    private static final class Entry {
+        private volatile JAXBContext context;
+
+        @NotNull
+        JAXBContext get(@NotNull Class<?> clazz) throws JAXBException {
+            JAXBContext result = context;
+            if (result == null) {
+                synchronized (this) {
+                    result = context;
+                    if (result == null) {
+                        result = JAXBContext.newInstance(clazz);
+                        context = result;
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    private JaxbContextCache() {
+    }
+
+    /**
+     * Returns the context of a class. The context will be created on first access.
+     *
+     * @param clazz Class
+     * @return The context but never null
+     * @throws JAXBException Thrown when unable to create the context
+     */
+    @NotNull
+    static JAXBContext get(@NotNull Class<?> clazz) throws JAXBException {
+        return CONTEXTS.get(clazz).get(clazz);
+    }
+
+    /**
+     * Checks whether the context of a class was already created.
+     *
+     * @param clazz Class
+     * @return Returns true when the context is cached
+     */
+    static boolean isCached(@NotNull Class<?> clazz) {
+        return CONTEXTS.get(clazz).context != null;
+    }
+
+}
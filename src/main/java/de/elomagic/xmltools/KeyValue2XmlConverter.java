@@ -18,6 +18,7 @@
 package de.elomagic.xmltools;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.w3c.dom.Attr;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -26,20 +27,31 @@ import org.w3c.dom.Node;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 
 /**
  * Tooling class to convert a key value map to a XML document.
  */
 public class KeyValue2XmlConverter {
 
+    private static final int BATCHES = ForkJoinPool.getCommonPoolParallelism() * 4;
+
     private String keyDelimiter = ".";
     private Pattern keyPattern = Pattern.compile("^(?<name>[^#\\[\\]]+)(\\[(?<index>\\d+)])?(#(?<attr>.+))?$");
     private int repetitionStart = 1;
+    private boolean parallel = false;
+    private NameTable nameTable;
 
     /**
      * Returns the delimiter string, which will divide key into key items.
@@ -107,6 +119,60 @@ public class KeyValue2XmlConverter {
         return this;
     }
 
+    /**
+     * Returns support of building the child element trees of the root element in parallel.
+     * <p>
+     * Default false
+     *
+     * @return When true, the child element trees will be built in parallel otherwise not
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Set support of building the child element trees of the root element in parallel.
+     * <p>
+     * The keys will be partitioned by the root child element they address, identified by the name and index of the
+     * second key item, so every repetition of an element is a partition of its own. The partitions are built in
+     * batches in the common fork join pool. The resulting document is identical to the sequential build. Keys which
+     * are not supported by the parallel build, for example attributes of the root followed by further items, fall
+     * back to the sequential build. Only recommended for maps with a large number of keys.
+     * <p>
+     * Default false
+     *
+     * @param parallel When true, the child element trees will be built in parallel otherwise not
+     * @return This instance
+     */
+    public KeyValue2XmlConverter setParallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
+    /**
+     * Returns the name table which is shared between conversions.
+     *
+     * @return Returns the shared name table or null when every conversion uses its own table.
+     */
+    @Nullable
+    public NameTable getNameTable() {
+        return nameTable;
+    }
+
+    /**
+     * Set a name table which will be shared between conversions.
+     * <p>
+     * Element and attribute names of the created document are canonicalized by the table, so the elements of
+     * repeated names share the same name instance. Default null, every conversion uses its own table.
+     *
+     * @param nameTable Shared name table or null
+     * @return This instance
+     */
+    public KeyValue2XmlConverter setNameTable(@Nullable NameTable nameTable) {
+        this.nameTable = nameTable;
+        return this;
+    }
+
     /**
      * Converts a key value map to an XML {@link Document}.
      *
@@ -126,34 +192,179 @@ public class KeyValue2XmlConverter {
         DocumentBuilder db = dbf.newDocumentBuilder();
         Document doc = db.newDocument();
 
-        keyValueMap
+        List<Map.Entry<String, String>> entries = keyValueMap
                 .entrySet()
                 .stream()
                 .sorted(Map.Entry.comparingByKey())
-                .forEach(e -> mapKeyValue(e.getKey(), e.getValue(), doc));
+                .toList();
+
+        NameTable names = nameTable == null ? new NameTable() : nameTable;
+
+        if (!parallel || !convertParallel(entries, db, doc, names)) {
+            entries.forEach(e -> mapKeyValue(e.getKey(), e.getValue(), doc, names));
+        }
 
         return Optional.of(doc);
 
     }
 
-    void mapKeyValue(@NotNull String key, @NotNull String value, @NotNull Document document) {
+    /**
+     * Builds the document by building the child element trees of the root element in separate documents in parallel.
+     * <p>
+     * Every root child, identified by its name and index, is a partition of its own. The partitions are built in
+     * batches, so also a long list of same named siblings like {@code root.item[1..N]} is spread over all workers.
+     * The order of the root children is planned in advance by replaying the sorted keys, so the adopted trees and
+     * the root text nodes end up in the same order as with the sequential build.
+     *
+     * @param entries Sorted key values
+     * @param db Builder to create the partition documents
+     * @param doc Target document
+     * @param names Name table which canonicalizes the names
+     * @return Returns false when the keys are not supported by the parallel build and nothing was done
+     */
+    boolean convertParallel(@NotNull List<Map.Entry<String, String>> entries,
+                            @NotNull DocumentBuilder db,
+                            @NotNull Document doc,
+                            @NotNull NameTable names) {
+
+        String rootName = null;
+        List<RootChild> rootChildren = new ArrayList<>();
+        Map<String, Integer> rootChildCounts = new HashMap<>();
+        Map<Partition, List<Map.Entry<String, String>>> partitions = new LinkedHashMap<>();
+
+        for (Map.Entry<String, String> entry : entries) {
+            String[] keyChain = entry.getKey().split("\\.", 3);
+
+            Matcher rootMatcher = keyPattern.matcher(keyChain[0]);
+            if (!rootMatcher.find()
+                    || (rootName != null && !rootName.equals(rootMatcher.group("name")))
+                    || (rootMatcher.group("index") != null && Integer.parseInt(rootMatcher.group("index")) != repetitionStart)
+                    || (rootMatcher.group("attr") != null && keyChain.length > 1)) {
+                return false;
+            }
+
+            rootName = names.canonicalize(rootMatcher.group("name"));
+
+            if (keyChain.length == 1) {
+                rootChildren.add(new RootChild(null, entry));
+                continue;
+            }
+
+            Matcher childMatcher = keyPattern.matcher(keyChain[1]);
+            if (!childMatcher.find()) {
+                return false;
+            }
+
+            String name = names.canonicalize(childMatcher.group("name"));
+            int count = Integer.parseInt(Objects.toString(childMatcher.group("index"), Integer.toString(repetitionStart))) - repetitionStart + 1;
+            if (count < 1) {
+                return false;
+            }
+
+            int rootChildCount = rootChildCounts.getOrDefault(name, 0);
+            while (rootChildCount < count) {
+                rootChildCount++;
+                rootChildren.add(new RootChild(new Partition(name, rootChildCount), null));
+            }
+            rootChildCounts.put(name, rootChildCount);
+
+            partitions.computeIfAbsent(new Partition(name, count), k -> new ArrayList<>()).add(entry);
+        }
+
+        if (rootName == null) {
+            return false;
+        }
+
+        List<Partition> keys = new ArrayList<>(partitions.keySet());
+        int batchSize = Math.max(1, (keys.size() + BATCHES - 1) / BATCHES);
+        List<List<Partition>> batches = new ArrayList<>();
+        List<Document> batchDocuments = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i += batchSize) {
+            batches.add(keys.subList(i, Math.min(i + batchSize, keys.size())));
+            batchDocuments.add(db.newDocument());
+        }
+
+        Map<Partition, Element> partitionElements = new ConcurrentHashMap<>();
+
+        IntStream.range(0, batches.size()).parallel().forEach(b -> {
+            Document batchDocument = batchDocuments.get(b);
+            for (Partition partition : batches.get(b)) {
+                Element element = batchDocument.createElement(partition.name());
+                partitions.get(partition).forEach(e -> mapPartitionKeyValue(e.getKey(), e.getValue(), element, batchDocument, names));
+                partitionElements.put(partition, element);
+            }
+        });
+
+        Element root = (Element)doc.appendChild(doc.createElement(rootName));
+
+        for (RootChild rootChild : rootChildren) {
+            if (rootChild.partition() == null) {
+                mapKeyValue(rootChild.entry().getKey(), rootChild.entry().getValue(), doc, names);
+            } else {
+                Element element = partitionElements.get(rootChild.partition());
+                root.appendChild(element == null ? doc.createElement(rootChild.partition().name()) : doc.adoptNode(element));
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Root child element identified by its name and its position within the same named siblings, starting with 1.
+     */
+    private record Partition(String name, int position) {
+    }
 
+    /**
+     * Either the partition of the next child element of the root or a key value of the root item itself.
+     */
+    private record RootChild(Partition partition, Map.Entry<String, String> entry) {
+    }
+
+    /**
+     * Maps a key value into the root child element of its partition.
+     *
+     * @param key Key value which addresses the root child element by its second item
+     * @param value Value of the key
+     * @param element Root child element of the partition
+     * @param document Owner document of the element
+     * @param names Name table which canonicalizes the names
+     */
+    private void mapPartitionKeyValue(@NotNull String key,
+                                      @NotNull String value,
+                                      @NotNull Element element,
+                                      @NotNull Document document,
+                                      @NotNull NameTable names) {
         String[] keyChain = key.split("\\.");
+        Matcher matcher = keyPattern.matcher(keyChain[1]);
+        matcher.find();
+
+        boolean isAttr = setAttribute(element, matcher.group("attr"), value, document, names);
 
-        //document.getDocumentElement().
+        mapKeyItems(key, keyChain, 2, element, isAttr, value, document, names);
+    }
+
+    void mapKeyValue(@NotNull String key, @NotNull String value, @NotNull Document document, @NotNull NameTable names) {
+        mapKeyItems(key, key.split("\\."), 0, document, false, value, document, names);
+    }
 
-        Node element = document;
+    private void mapKeyItems(@NotNull String key,
+                             @NotNull String[] keyChain,
+                             int start,
+                             @NotNull Node parent,
+                             boolean isAttr,
+                             @NotNull String value,
+                             @NotNull Document document,
+                             @NotNull NameTable names) {
 
-        boolean isAttr = false;
+        Node element = parent;
 
-        for (String item : keyChain) {
-            Matcher matcher = keyPattern.matcher(item);
+        for (int i = start; i < keyChain.length; i++) {
+            Matcher matcher = keyPattern.matcher(keyChain[i]);
 
             if (matcher.find()) {
-                String name = matcher.group("name");
+                String name = names.canonicalize(matcher.group("name"));
                 int index = Integer.parseInt(Objects.toString(matcher.group("index"), Integer.toString(repetitionStart)));
-                // TODO Check. Attr can only be set on latest item
-                String attr = matcher.group("attr");
 
                 while (findChild(element, index-repetitionStart, name).isEmpty()) {
                     element.appendChild(document.createElement(name));
@@ -161,12 +372,8 @@ public class KeyValue2XmlConverter {
 
                 element = findChild(element, index-repetitionStart, name).orElseThrow();
 
-                if (attr != null) {
-                    Attr a = document.createAttribute(attr);
-                    a.setValue(value);
-                    ((Element)element).setAttributeNode(a);
-                    isAttr = true;
-                }
+                // TODO Check. Attr can only be set on latest item
+                isAttr |= setAttribute((Element)element, matcher.group("attr"), value, document, names);
             } else {
                 throw new RuntimeException("Unsupported key value '" + key + "'.");
             }
@@ -177,6 +384,22 @@ public class KeyValue2XmlConverter {
         }
     }
 
+    private boolean setAttribute(@NotNull Element element,
+                                 @Nullable String attr,
+                                 @NotNull String value,
+                                 @NotNull Document document,
+                                 @NotNull NameTable names) {
+        if (attr == null) {
+            return false;
+        }
+
+        Attr a = document.createAttribute(names.canonicalize(attr));
+        a.setValue(value);
+        element.setAttributeNode(a);
+        return true;
+    }
+
+
     @NotNull
     Optional<Element> findChild(@NotNull Node parent, int index, @NotNull String name) {
         return ElementTool
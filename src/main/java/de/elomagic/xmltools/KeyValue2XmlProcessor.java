@@ -0,0 +1,215 @@
+/*
+ * XML Tools
+ * Copyright (c) 2023-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.xmltools;
+
+import org.jetbrains.annotations.NotNull;
+import org.w3c.dom.Document;
+
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+
+/**
+ * Reactive processor which subscribes to key values and publishes the converted XML document as UTF-8 encoded chunks.
+ * <p>
+ * Key values are requested in batches. When the upstream completes, the XML document will be built and serialized on
+ * the given executor, so the threads which deliver the key values are never blocked. The serializer will be blocked,
+ * when the subscribers don't request more chunks. Therefore, the chunks are delivered to the subscribers by a separate
+ * publisher executor. The conversion starts when the upstream completed and this
+ * processor got its first subscriber.
+ */
+public class KeyValue2XmlProcessor extends SubmissionPublisher<ByteBuffer> implements Flow.Processor<Map.Entry<String, String>, ByteBuffer> {
+
+    private static final int REQUEST_SIZE = 256;
+    private static final int CHUNK_SIZE = 8192;
+
+    private final KeyValue2XmlConverter converter;
+    private final Executor executor;
+    private final Map<String, String> keyValues = new HashMap<>();
+    private Flow.Subscription subscription;
+    private int outstanding;
+    private boolean completed;
+    private boolean started;
+
+    /**
+     * Creates a processor which delivers the chunks by the {@link ForkJoinPool#commonPool()}.
+     *
+     * @param converter Converter which will convert the key values
+     * @param executor Executor which will build and serialize the document
+     */
+    public KeyValue2XmlProcessor(@NotNull KeyValue2XmlConverter converter, @NotNull Executor executor) {
+        this(converter, executor, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a processor.
+     * <p>
+     * The serializer blocks a thread of the executor while waiting for demand, so both executors must not share a
+     * single thread.
+     *
+     * @param converter Converter which will convert the key values
+     * @param executor Executor which will build and serialize the document
+     * @param publisherExecutor Executor which will deliver the chunks to the subscribers
+     */
+    public KeyValue2XmlProcessor(@NotNull KeyValue2XmlConverter converter,
+                                 @NotNull Executor executor,
+                                 @NotNull Executor publisherExecutor) {
+        super(publisherExecutor, Flow.defaultBufferSize());
+        this.converter = converter;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        super.subscribe(subscriber);
+        startIfReady();
+    }
+
+    @Override
+    public void onSubscribe(@NotNull Flow.Subscription subscription) {
+        synchronized (this) {
+            if (this.subscription != null) {
+                subscription.cancel();
+                return;
+            }
+
+            this.subscription = subscription;
+        }
+
+        outstanding = REQUEST_SIZE;
+        subscription.request(REQUEST_SIZE);
+    }
+
+    @Override
+    public void onNext(@NotNull Map.Entry<String, String> entry) {
+        keyValues.put(entry.getKey(), entry.getValue());
+
+        if (--outstanding == 0) {
+            outstanding = REQUEST_SIZE;
+            subscription.request(REQUEST_SIZE);
+        }
+    }
+
+    @Override
+    public void onError(@NotNull Throwable throwable) {
+        closeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        synchronized (this) {
+            completed = true;
+        }
+
+        startIfReady();
+    }
+
+    private synchronized void startIfReady() {
+        if (started || !completed || !hasSubscribers()) {
+            return;
+        }
+
+        started = true;
+        executor.execute(this::convert);
+    }
+
+    private void convert() {
+        try {
+            Optional<Document> document = converter.convert(keyValues);
+            keyValues.clear();
+
+            if (document.isPresent()) {
+                Transformer transformer = TransformerFactory.newInstance().newTransformer();
+                transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+
+                try (OutputStream out = new ChunkOutputStream()) {
+                    transformer.transform(new DOMSource(document.get()), new StreamResult(out));
+                }
+            }
+
+            close();
+        } catch (Exception ex) {
+            closeExceptionally(ex);
+        }
+    }
+
+    /**
+     * Output stream which submits the written bytes in chunks.
+     */
+    private class ChunkOutputStream extends OutputStream {
+
+        private byte[] buffer = new byte[CHUNK_SIZE];
+        private int size;
+
+        @Override
+        public void write(int b) {
+            buffer[size++] = (byte)b;
+
+            if (size == buffer.length) {
+                flush();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            int offset = off;
+            int remaining = len;
+
+            while (remaining > 0) {
+                int count = Math.min(remaining, buffer.length - size);
+                System.arraycopy(b, offset, buffer, size, count);
+                size += count;
+                offset += count;
+                remaining -= count;
+
+                if (size == buffer.length) {
+                    flush();
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+            if (size == 0) {
+                return;
+            }
+
+            submit(ByteBuffer.wrap(buffer, 0, size));
+            buffer = new byte[CHUNK_SIZE];
+            size = 0;
+        }
+
+        @Override
+        public void close() {
+            flush();
+        }
+
+    }
+
+}
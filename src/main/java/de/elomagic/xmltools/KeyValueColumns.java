@@ -0,0 +1,198 @@
+/*
+ * XML Tools
+ * Copyright (c) 2023-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.xmltools;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Column oriented result of a flattened XML document.
+ * <p>
+ * Every key value pair is stored as a row. The keys are kept in a key table and the values in primitive arrays, so
+ * numeric and boolean values are never boxed.
+ */
+public class KeyValueColumns implements TypedKeyValueSink {
+
+    /**
+     * Type of value in a row.
+     */
+    public enum ValueType {
+        STRING,
+        LONG,
+        DOUBLE,
+        BOOLEAN
+    }
+
+    private static final ValueType[] VALUE_TYPES = ValueType.values();
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int size;
+    private String[] keys = new String[INITIAL_CAPACITY];
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private long[] longValues = new long[INITIAL_CAPACITY];
+    private double[] doubleValues = new double[INITIAL_CAPACITY];
+    private String[] stringValues = new String[INITIAL_CAPACITY];
+
+    @Override
+    public void accept(@NotNull String key, @NotNull String value) {
+        int row = addRow(key, ValueType.STRING);
+        stringValues[row] = value;
+    }
+
+    @Override
+    public void acceptLong(@NotNull String key, long value) {
+        int row = addRow(key, ValueType.LONG);
+        longValues[row] = value;
+    }
+
+    @Override
+    public void acceptDouble(@NotNull String key, double value) {
+        int row = addRow(key, ValueType.DOUBLE);
+        doubleValues[row] = value;
+    }
+
+    @Override
+    public void acceptBoolean(@NotNull String key, boolean value) {
+        int row = addRow(key, ValueType.BOOLEAN);
+        longValues[row] = value ? 1 : 0;
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return Number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the key of a row.
+     *
+     * @param row Row index
+     * @return The key but never null
+     */
+    @NotNull
+    public String getKey(int row) {
+        checkRow(row);
+        return keys[row];
+    }
+
+    /**
+     * Returns the type of the value of a row.
+     *
+     * @param row Row index
+     * @return The type but never null
+     */
+    @NotNull
+    public ValueType getType(int row) {
+        checkRow(row);
+        return VALUE_TYPES[types[row]];
+    }
+
+    /**
+     * Returns the value of a row of type {@link ValueType#LONG}.
+     *
+     * @param row Row index
+     * @return The value
+     * @throws IllegalStateException Thrown when value of the row is not of type {@link ValueType#LONG}
+     */
+    public long getLong(int row) {
+        checkType(row, ValueType.LONG);
+        return longValues[row];
+    }
+
+    /**
+     * Returns the value of a row of type {@link ValueType#DOUBLE} or {@link ValueType#LONG}.
+     *
+     * @param row Row index
+     * @return The value
+     * @throws IllegalStateException Thrown when value of the row is not numeric
+     */
+    public double getDouble(int row) {
+        ValueType type = getType(row);
+        if (type == ValueType.LONG) {
+            return longValues[row];
+        }
+
+        checkType(row, ValueType.DOUBLE);
+        return doubleValues[row];
+    }
+
+    /**
+     * Returns the value of a row of type {@link ValueType#BOOLEAN}.
+     *
+     * @param row Row index
+     * @return The value
+     * @throws IllegalStateException Thrown when value of the row is not of type {@link ValueType#BOOLEAN}
+     */
+    public boolean getBoolean(int row) {
+        checkType(row, ValueType.BOOLEAN);
+        return longValues[row] != 0;
+    }
+
+    /**
+     * Returns the value of a row as string independent of the type.
+     * <p>
+     * Note, values of type other than {@link ValueType#STRING} will be formatted on every call. The original text of
+     * decimals is not kept, so values of type {@link ValueType#DOUBLE} are formatted by {@link Double#toString(double)}
+     * and may differ from the text of the document, for example "1.10" is returned as "1.1" and "0.00001" as "1.0E-5".
+     *
+     * @param row Row index
+     * @return The value but never null
+     */
+    @NotNull
+    public String getString(int row) {
+        return switch (getType(row)) {
+            case LONG -> Long.toString(longValues[row]);
+            case DOUBLE -> Double.toString(doubleValues[row]);
+            case BOOLEAN -> Boolean.toString(longValues[row] != 0);
+            default -> stringValues[row];
+        };
+    }
+
+    private int addRow(@NotNull String key, @NotNull ValueType type) {
+        if (size == keys.length) {
+            int capacity = keys.length * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            types = Arrays.copyOf(types, capacity);
+            longValues = Arrays.copyOf(longValues, capacity);
+            doubleValues = Arrays.copyOf(doubleValues, capacity);
+            stringValues = Arrays.copyOf(stringValues, capacity);
+        }
+
+        keys[size] = key;
+        types[size] = (byte)type.ordinal();
+
+        return size++;
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of range [0.." + size + ").");
+        }
+    }
+
+    private void checkType(int row, @NotNull ValueType type) {
+        if (getType(row) != type) {
+            throw new IllegalStateException("Value of row " + row + " is of type " + getType(row) + " but not " + type + ".");
+        }
+    }
+
+}
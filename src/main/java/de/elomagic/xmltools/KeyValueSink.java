@@ -0,0 +1,36 @@
+/*
+ * XML Tools
+ * Copyright (c) 2023-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.xmltools;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Receives the key value pairs of a flattened XML document one by one.
+ */
+@FunctionalInterface
+public interface KeyValueSink {
+
+    /**
+     * Called for every key value pair of the flattened XML document.
+     *
+     * @param key Full key of the value
+     * @param value Value as string
+     */
+    void accept(@NotNull String key, @NotNull String value);
+
+}
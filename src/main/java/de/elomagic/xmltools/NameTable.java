@@ -0,0 +1,105 @@
+/*
+ * XML Tools
+ * Copyright (c) 2023-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.xmltools;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Symbol table of element and attribute names.
+ * <p>
+ * Every name will be canonicalized to a single {@link String} instance, so equal names of a conversion share the
+ * same instance and can be compared by identity. A table can be shared between conversions and threads.
+ * <p>
+ * The table keeps every name until it is garbage collected itself and grows with the vocabulary of the converted
+ * documents. Therefore, the number of names is limited. Names beyond the limit are canonicalized by
+ * {@link String#intern()}, whose instances are released when no longer referenced.
+ */
+public class NameTable {
+
+    /**
+     * Default maximum number of names of a table.
+     */
+    public static final int DEFAULT_MAX_SIZE = 10_000;
+
+    private final Map<String, String> names = new ConcurrentHashMap<>();
+    private final int maxSize;
+
+    /**
+     * Creates a table with a maximum of {@link #DEFAULT_MAX_SIZE} names.
+     */
+    public NameTable() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates a table.
+     *
+     * @param maxSize Maximum number of names kept by the table
+     */
+    public NameTable(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Maximum size must not be negative.");
+        }
+
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the canonical instance of a name.
+     *
+     * @param name Name
+     * @return The canonical instance which is equal to the given name but never null
+     */
+    @NotNull
+    public String canonicalize(@NotNull String name) {
+        String canonical = names.get(name);
+        if (canonical != null) {
+            return canonical;
+        }
+
+        if (names.size() >= maxSize) {
+            return name.intern();
+        }
+
+        canonical = names.putIfAbsent(name, name);
+
+        return canonical == null ? name : canonical;
+    }
+
+    /**
+     * Returns the maximum number of names kept by the table.
+     *
+     * @return Maximum number of names
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the number of canonical names.
+     *
+     * @return Number of names
+     */
+    public int size() {
+        return names.size();
+    }
+
+}
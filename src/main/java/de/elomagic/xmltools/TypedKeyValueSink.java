@@ -0,0 +1,56 @@
+/*
+ * XML Tools
+ * Copyright (c) 2023-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.xmltools;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A {@link KeyValueSink} which receives numeric and boolean values as primitives.
+ * <p>
+ * Only values in their canonical form are reported as primitives. Integers must not have a leading plus sign or
+ * leading zeros and must fit into a long, decimals must have digits before and after the decimal point and must be
+ * representable by a double without loss, booleans must be exactly "true" or "false". Any other value is reported by
+ * {@link #accept(String, String)}.
+ */
+public interface TypedKeyValueSink extends KeyValueSink {
+
+    /**
+     * Called for every integer value.
+     *
+     * @param key Full key of the value
+     * @param value Value
+     */
+    void acceptLong(@NotNull String key, long value);
+
+    /**
+     * Called for every decimal value.
+     *
+     * @param key Full key of the value
+     * @param value Value
+     */
+    void acceptDouble(@NotNull String key, double value);
+
+    /**
+     * Called for every boolean value.
+     *
+     * @param key Full key of the value
+     * @param value Value
+     */
+    void acceptBoolean(@NotNull String key, boolean value);
+
+}
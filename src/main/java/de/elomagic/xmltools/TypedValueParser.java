@@ -0,0 +1,190 @@
+/*
+ * XML Tools
+ * Copyright (c) 2023-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.xmltools;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.math.BigDecimal;
+
+/**
+ * Classifies string values and passes them as primitives to a {@link TypedKeyValueSink}.
+ */
+final class TypedValueParser {
+
+    private static final int MAX_SAFE_LONG_DIGITS = 18;
+    private static final int MAX_SAFE_DOUBLE_DIGITS = 15;
+
+    private TypedValueParser() {
+    }
+
+    /**
+     * Passes the value to the matching typed method of the sink.
+     * <p>
+     * Integers with up to 18 digits are accumulated directly from the characters of the value, so no intermediate
+     * objects are created. Decimals are only passed as double, when the double represents the value without loss.
+     * Decimals out of the range or with more significant digits than a double can hold are passed as string.
+     *
+     * @param key Full key of the value
+     * @param value Value to classify
+     * @param sink Sink which will receive the value
+     */
+    static void dispatch(@NotNull String key, @NotNull String value, @NotNull TypedKeyValueSink sink) {
+
+        int length = value.length();
+
+        if (length == 0) {
+            sink.accept(key, value);
+            return;
+        }
+
+        if ("true".equals(value)) {
+            sink.acceptBoolean(key, true);
+            return;
+        } else if ("false".equals(value)) {
+            sink.acceptBoolean(key, false);
+            return;
+        }
+
+        boolean negative = value.charAt(0) == '-';
+        int start = negative ? 1 : 0;
+        int integerEnd = skipDigits(value, start);
+        int integerDigits = integerEnd - start;
+
+        if (integerDigits == 0 || (integerDigits > 1 && value.charAt(start) == '0')) {
+            sink.accept(key, value);
+        } else if (integerEnd == length) {
+            if (negative && value.charAt(start) == '0') {
+                // "-0" has no canonical long representation
+                sink.accept(key, value);
+                return;
+            }
+
+            dispatchLong(key, value, negative, start, integerEnd, sink);
+        } else if (isDecimalFraction(value, integerEnd)) {
+            dispatchDouble(key, value, sink);
+        } else {
+            sink.accept(key, value);
+        }
+    }
+
+    private static void dispatchLong(@NotNull String key,
+                                     @NotNull String value,
+                                     boolean negative,
+                                     int start,
+                                     int end,
+                                     @NotNull TypedKeyValueSink sink) {
+
+        if (end - start > MAX_SAFE_LONG_DIGITS) {
+            try {
+                sink.acceptLong(key, Long.parseLong(value));
+            } catch (NumberFormatException ex) {
+                sink.accept(key, value);
+            }
+            return;
+        }
+
+        long result = 0;
+        for (int i = start; i < end; i++) {
+            result = result * 10 + (value.charAt(i) - '0');
+        }
+
+        sink.acceptLong(key, negative ? -result : result);
+    }
+
+    private static void dispatchDouble(@NotNull String key, @NotNull String value, @NotNull TypedKeyValueSink sink) {
+
+        double result = Double.parseDouble(value);
+
+        if (isExact(value, result)) {
+            sink.acceptDouble(key, result);
+        } else {
+            sink.accept(key, value);
+        }
+    }
+
+    /**
+     * Checks whether the double represents the decimal value. A finite normal double holds up to 15 significant
+     * digits, otherwise the shortest representation of the double will be compared with the value.
+     */
+    private static boolean isExact(@NotNull String value, double result) {
+
+        if (!Double.isFinite(result)) {
+            return false;
+        } else if (significantDigits(value) <= MAX_SAFE_DOUBLE_DIGITS && Math.abs(result) >= Double.MIN_NORMAL) {
+            return true;
+        }
+
+        return new BigDecimal(value).compareTo(new BigDecimal(Double.toString(result))) == 0;
+    }
+
+    /**
+     * Returns the number of digits of the mantissa without leading zeros.
+     */
+    private static int significantDigits(@NotNull String value) {
+        int count = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == 'e' || c == 'E') {
+                break;
+            } else if (c >= '1' && c <= '9' || (c == '0' && count > 0)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks for a fraction part like ".5" optional followed by an exponent like "E-3".
+     */
+    private static boolean isDecimalFraction(@NotNull String value, int index) {
+
+        if (value.charAt(index) != '.') {
+            return false;
+        }
+
+        int fractionEnd = skipDigits(value, index + 1);
+        if (fractionEnd == index + 1) {
+            return false;
+        } else if (fractionEnd == value.length()) {
+            return true;
+        }
+
+        char c = value.charAt(fractionEnd);
+        if (c != 'e' && c != 'E') {
+            return false;
+        }
+
+        int exponentStart = fractionEnd + 1;
+        if (exponentStart < value.length() && (value.charAt(exponentStart) == '-' || value.charAt(exponentStart) == '+')) {
+            exponentStart++;
+        }
+
+        int exponentEnd = skipDigits(value, exponentStart);
+
+        return exponentEnd > exponentStart && exponentEnd == value.length();
+    }
+
+    private static int skipDigits(@NotNull String value, int index) {
+        int i = index;
+        while (i < value.length() && value.charAt(i) >= '0' && value.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+}
@@ -18,10 +18,17 @@
 package de.elomagic.xmltools;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.w3c.dom.Attr;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.Text;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -30,9 +37,15 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
 
 /**
  * Tooling class to convert a XML document to a key value map.
@@ -47,6 +60,9 @@ public class Xml2KeyValueConverter {
     private int repetitionStart = 1;
     private String repetitionPattern = "[%s]";
 
+    private NameTable nameTable;
+    private XmlLimits limits;
+
     /**
      * Returns delimiters string
      * <p>
@@ -162,6 +178,55 @@ public class Xml2KeyValueConverter {
         return this;
     }
 
+    /**
+     * Returns the name table which is shared between conversions.
+     *
+     * @return Returns the shared name table or null when every conversion uses its own table.
+     */
+    @Nullable
+    public NameTable getNameTable() {
+        return nameTable;
+    }
+
+    /**
+     * Set a name table which will be shared between conversions.
+     * <p>
+     * Only element and attribute names are kept by the table, so it grows with the vocabulary of the documents and
+     * not with the number of repeated elements. Default null, every conversion uses its own table.
+     *
+     * @param nameTable Shared name table or null
+     * @return Returns this instance
+     */
+    public Xml2KeyValueConverter setNameTable(@Nullable NameTable nameTable) {
+        this.nameTable = nameTable;
+        return this;
+    }
+
+    /**
+     * Returns the limits of the documents to convert.
+     *
+     * @return Returns the limits or null when documents are not limited
+     */
+    @Nullable
+    public XmlLimits getLimits() {
+        return limits;
+    }
+
+    /**
+     * Set the limits of the documents to convert.
+     * <p>
+     * When set, documents will be parsed by a SAX parser with secure processing which checks the limits while parsing.
+     * A {@link XmlLimitExceededException} will be thrown when a limit is exceeded. Default null, documents are not
+     * limited.
+     *
+     * @param limits Limits or null
+     * @return Returns this instance
+     */
+    public Xml2KeyValueConverter setLimits(@Nullable XmlLimits limits) {
+        this.limits = limits;
+        return this;
+    }
+
     /**
      * Reads an XML document from a file and converts it into a key value {@link Map}.
      *
@@ -190,13 +255,63 @@ public class Xml2KeyValueConverter {
     @NotNull
     public Map<String, String> convert(@NotNull InputStream in) throws ParserConfigurationException, IOException, SAXException {
 
+        Map<String, String> result = new HashMap<>();
+
+        convert(in, result::put);
+
+        return result;
+    }
+
+    /**
+     * Reads an XML document from a file and passes the key values to a {@link KeyValueSink}.
+     *
+     * @param file File to read
+     * @param sink Sink which receives the key values. When the sink is a {@link TypedKeyValueSink} then numeric and
+     *             boolean values will be passed as primitives.
+     * @throws ParserConfigurationException Thrown when unable to parse the XML document
+     * @throws IOException Thrown when unable to read XML document from the input stream
+     * @throws SAXException Thrown when unable to parse the XML document
+     */
+    public void convert(@NotNull Path file, @NotNull KeyValueSink sink) throws ParserConfigurationException, IOException, SAXException {
+
+        try (InputStream in = Files.newInputStream(file)) {
+            convert(in, sink);
+        }
+
+    }
+
+    /**
+     * Reads an XML document from an {@link InputStream} and passes the key values to a {@link KeyValueSink}.
+     *
+     * @param in Input stream where to read the XML document
+     * @param sink Sink which receives the key values. When the sink is a {@link TypedKeyValueSink} then numeric and
+     *             boolean values will be passed as primitives.
+     * @throws ParserConfigurationException Thrown when unable to parse the XML document
+     * @throws IOException Thrown when unable to read XML document from the input stream
+     * @throws SAXException Thrown when unable to parse the XML document
+     * @throws XmlLimitExceededException Thrown when the document exceeds the limits
+     */
+    public void convert(@NotNull InputStream in, @NotNull KeyValueSink sink) throws ParserConfigurationException, IOException, SAXException {
+
         DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
         //an instance of builder to parse the specified xml file
         DocumentBuilder db = dbf.newDocumentBuilder();
-        Document doc = db.parse(in);
+        Document doc = limits == null ? db.parse(in) : parseLimited(in, db.newDocument());
         //doc.getDocumentElement().normalize();
 
-        return addKeyPrefix(doc.getDocumentElement().getNodeName(), parseChildElements(doc.getDocumentElement()));
+        NameTable names = nameTable == null ? new NameTable() : nameTable;
+        KeyValueSink target = limits == null ? sink : limits.limit(sink);
+
+        parseChildElements(doc.getDocumentElement(), names.canonicalize(doc.getDocumentElement().getNodeName()), target, names);
+    }
+
+    @NotNull
+    private Document parseLimited(@NotNull InputStream in, @NotNull Document doc) throws ParserConfigurationException, IOException, SAXException {
+        XMLReader reader = limits.createXmlReader(false);
+        reader.setContentHandler(new DocumentHandler(doc));
+        reader.parse(new InputSource(limits.limit(in)));
+
+        return doc;
     }
 
     boolean hasChildElements(@NotNull Element element) {
@@ -207,62 +322,107 @@ public class Xml2KeyValueConverter {
         return ElementTool.streamChildElements(element).findFirst().isEmpty();
     }
 
-    @NotNull
-    Map<String, String> parseChildElements(@NotNull Element element) {
+    /**
+     * Passes the key values of the attributes and child elements of an element to the sink.
+     *
+     * @param element Element to parse
+     * @param prefixKey Key of the element which will be prepended to all keys
+     * @param sink Sink which receives the key values
+     * @param names Name table which canonicalizes the element and attribute names
+     */
+    void parseChildElements(@NotNull Element element, @NotNull String prefixKey, @NotNull KeyValueSink sink, @NotNull NameTable names) {
+        parseChildElements(element, prefixKey, sink, names, null);
+    }
 
-        Map<String, String> result = new HashMap<>();
+    /**
+     * Passes the key values of the attributes and child elements of an element to the sink.
+     *
+     * @param element Element to parse
+     * @param prefixKey Key of the element which will be prepended to all keys
+     * @param sink Sink which receives the key values
+     * @param names Name table which canonicalizes the element and attribute names
+     * @param elementKeys Optional consumer which receives every descendant element with its key
+     */
+    void parseChildElements(@NotNull Element element,
+                            @NotNull String prefixKey,
+                            @NotNull KeyValueSink sink,
+                            @NotNull NameTable names,
+                            @Nullable BiConsumer<Element, String> elementKeys) {
+
+        String elementName = names.canonicalize(element.getNodeName());
 
         // Map attributes the element
         if (attributeSupport) {
             for (int i = 0; i < element.getAttributes().getLength(); i++) {
                 Attr attr = (Attr) element.getAttributes().item(i);
-                result.put(String.join(attributeDelimiter, element.getNodeName(), attr.getName()), attr.getValue());
+                String key = names.canonicalize(String.join(attributeDelimiter, elementName, attr.getName()));
+                emit(addKeyPrefix(prefixKey, key), attr.getValue(), sink);
             }
         }
 
-        // Grouped multiple elements names
-        Map<String, Integer> groupedChildKeys = new HashMap<>();
-        Map<String, AtomicInteger> groupedChildIndexKeys = new HashMap<>();
-        ElementTool.streamChildElements(element)
-                .filter(this::hasChildText)
-                .forEach(child -> {
-                    groupedChildKeys.put(child.getNodeName(), groupedChildKeys.getOrDefault(child.getNodeName(), 0) + 1);
-                    groupedChildIndexKeys.put(child.getNodeName(), new AtomicInteger(repetitionStart));
-                });
-        ElementTool.streamChildElements(element)
-                .filter(this::hasChildElements)
-                .forEach(child -> {
-                    groupedChildKeys.put(child.getNodeName(), groupedChildKeys.getOrDefault(child.getNodeName(), 0) + 1);
-                    groupedChildIndexKeys.put(child.getNodeName(), new AtomicInteger(repetitionStart));
-                });
-
-        // Map elements with text
-        ElementTool.streamChildElements(element)
-                .filter(this::hasChildText)
-                .forEach(child -> {
-                    String childName = child.getNodeName();
-                    String key = groupedChildKeys.get(childName) == 1
-                            ? childName
-                            : (childName + String.format(repetitionPattern, groupedChildIndexKeys.get(childName).getAndIncrement()));
-
-                    result.put(key, child.getTextContent());
+        // Map elements with text first and then elements with elements inside
+        childKeys(element, names).forEach((child, key) -> {
+            String childKey = addKeyPrefix(prefixKey, key);
+
+            if (elementKeys != null) {
+                elementKeys.accept(child, childKey);
+            }
+
+            if (hasChildElements(child)) {
+                parseChildElements(child, childKey, sink, names, elementKeys);
+            } else {
+                emit(childKey, child.getTextContent(), sink);
+            }
         });
+    }
 
-        // Map elements with elements inside
-        ElementTool.streamChildElements(element)
-                .filter(this::hasChildElements)
-                .forEach(child -> {
-                    String childName = child.getNodeName();
-                    String key = groupedChildKeys.getOrDefault(childName, repetitionStart) == 1
-                            ? childName
-                            : (childName + String.format(repetitionPattern, groupedChildIndexKeys.get(childName).getAndIncrement()));
+    /**
+     * Returns the key items of the child elements of an element.
+     * <p>
+     * Equal named child elements get a repetition index. Elements with text are indexed before elements with elements
+     * inside.
+     *
+     * @param element Parent element
+     * @param names Name table which canonicalizes the element and attribute names
+     * @return Key items of the child elements, elements with text first and then elements with elements inside
+     */
+    @NotNull
+    Map<Element, String> childKeys(@NotNull Element element, @NotNull NameTable names) {
+
+        List<Element> textChildren = new ArrayList<>();
+        List<Element> elementChildren = new ArrayList<>();
 
-                    parseChildElements(child).forEach((k, v) -> result.put(addKeyPrefix(key, k), v));
-                });
+        // Grouped multiple elements names. Names are canonical, so they can be compared by identity
+        Map<String, Integer> groupedChildKeys = new IdentityHashMap<>();
+        ElementTool.streamChildElements(element).forEach(child -> {
+            (hasChildElements(child) ? elementChildren : textChildren).add(child);
+            groupedChildKeys.merge(names.canonicalize(child.getNodeName()), 1, Integer::sum);
+        });
+
+        Map<String, AtomicInteger> groupedChildIndexKeys = new IdentityHashMap<>();
+        Map<Element, String> result = new LinkedHashMap<>();
+        Stream.concat(textChildren.stream(), elementChildren.stream()).forEach(child -> {
+            String childName = names.canonicalize(child.getNodeName());
+            String key = groupedChildKeys.get(childName) == 1
+                    ? childName
+                    : childName + String.format(
+                            repetitionPattern,
+                            groupedChildIndexKeys.computeIfAbsent(childName, k -> new AtomicInteger(repetitionStart)).getAndIncrement());
+
+            result.put(child, key);
+        });
 
         return result;
     }
 
+    private void emit(@NotNull String key, @NotNull String value, @NotNull KeyValueSink sink) {
+        if (sink instanceof TypedKeyValueSink typedSink) {
+            TypedValueParser.dispatch(key, value, typedSink);
+        } else {
+            sink.accept(key, value);
+        }
+    }
+
     @NotNull
     String addKeyPrefix(@NotNull String prefixKey, @NotNull String key) {
         return String.join(keyDelimiter, prefixKey, key);
@@ -277,4 +437,52 @@ public class Xml2KeyValueConverter {
         return result;
     }
 
+    /**
+     * Builds a DOM document of the SAX events, which are relevant for the conversion.
+     */
+    private static class DocumentHandler extends DefaultHandler {
+
+        private final Document document;
+        private Node current;
+
+        DocumentHandler(@NotNull Document document) {
+            this.document = document;
+            this.current = document;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            Element element = document.createElement(qName);
+            for (int i = 0; i < attributes.getLength(); i++) {
+                element.setAttribute(attributes.getQName(i), attributes.getValue(i));
+            }
+
+            current = current.appendChild(element);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            current = current.getParentNode();
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (current == document) {
+                return;
+            }
+
+            if (current.getLastChild() instanceof Text text) {
+                text.appendData(new String(ch, start, length));
+            } else {
+                current.appendChild(document.createTextNode(new String(ch, start, length)));
+            }
+        }
+
+        @Override
+        public void ignorableWhitespace(char[] ch, int start, int length) {
+            characters(ch, start, length);
+        }
+
+    }
+
 }
@@ -0,0 +1,208 @@
+/*
+ * XML Tools
+ * Copyright (c) 2023-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.xmltools;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SubmissionPublisher;
+
+/**
+ * Reactive processor which subscribes to chunks of an XML document and publishes its key values.
+ * <p>
+ * The XML document is parsed on the given executor, so the threads which deliver the chunks are never blocked.
+ * Chunks are requested one after another while the parser reads them and the parser will be blocked, when the
+ * subscribers don't request more key values. Therefore, the key values are delivered to the subscribers by a separate
+ * publisher executor. The remaining bytes of every received chunk are copied, so publishers may reuse their buffers.
+ * Parsing starts when this processor is subscribed and got its first subscriber. When the last subscriber cancels, the
+ * upstream subscription will be cancelled too.
+ * <p>
+ * Note, the repetition index of a key depends on the number of equal named sibling elements, so the key values of the
+ * document will be published after the document was read completely.
+ */
+public class Xml2KeyValueProcessor extends SubmissionPublisher<Map.Entry<String, String>> implements Flow.Processor<ByteBuffer, Map.Entry<String, String>> {
+
+    private final Xml2KeyValueConverter converter;
+    private final Executor executor;
+    private ChunkInputStream in;
+    private boolean started;
+
+    /**
+     * Creates a processor which delivers the key values by the {@link ForkJoinPool#commonPool()}.
+     *
+     * @param converter Converter which will convert the XML document
+     * @param executor Executor which will parse the document
+     */
+    public Xml2KeyValueProcessor(@NotNull Xml2KeyValueConverter converter, @NotNull Executor executor) {
+        this(converter, executor, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a processor.
+     * <p>
+     * The parser blocks a thread of the executor while waiting for demand, so both executors must not share a single
+     * thread.
+     *
+     * @param converter Converter which will convert the XML document
+     * @param executor Executor which will parse the document
+     * @param publisherExecutor Executor which will deliver the key values to the subscribers
+     */
+    public Xml2KeyValueProcessor(@NotNull Xml2KeyValueConverter converter,
+                                 @NotNull Executor executor,
+                                 @NotNull Executor publisherExecutor) {
+        super(publisherExecutor, Flow.defaultBufferSize());
+        this.converter = converter;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Map.Entry<String, String>> subscriber) {
+        super.subscribe(subscriber);
+        startIfReady();
+    }
+
+    @Override
+    public void onSubscribe(@NotNull Flow.Subscription subscription) {
+        synchronized (this) {
+            if (in != null) {
+                subscription.cancel();
+                return;
+            }
+
+            in = new ChunkInputStream(subscription);
+        }
+
+        subscription.request(1);
+        startIfReady();
+    }
+
+    @Override
+    public void onNext(@NotNull ByteBuffer chunk) {
+        // Publishers may reuse the buffer after this call, so the remaining bytes are copied
+        ByteBuffer copy = ByteBuffer.allocate(chunk.remaining());
+        copy.put(chunk.duplicate()).flip();
+        in.chunks.add(copy);
+    }
+
+    @Override
+    public void onError(@NotNull Throwable throwable) {
+        in.error = throwable;
+        in.chunks.add(ChunkInputStream.END);
+    }
+
+    @Override
+    public void onComplete() {
+        in.chunks.add(ChunkInputStream.END);
+    }
+
+    private synchronized void startIfReady() {
+        if (started || in == null || !hasSubscribers()) {
+            return;
+        }
+
+        started = true;
+        executor.execute(this::parse);
+    }
+
+    private void parse() {
+        try (InputStream stream = in) {
+            converter.convert(stream, (key, value) -> {
+                if (!hasSubscribers()) {
+                    throw new CancellationException("All subscribers cancelled.");
+                }
+
+                submit(new AbstractMap.SimpleImmutableEntry<>(key, value));
+            });
+            close();
+        } catch (CancellationException ex) {
+            in.subscription.cancel();
+            close();
+        } catch (Exception ex) {
+            in.subscription.cancel();
+            closeExceptionally(ex);
+        }
+    }
+
+    /**
+     * Blocking input stream of the received chunks. Requests the next chunk when starting to read a chunk.
+     */
+    private static class ChunkInputStream extends InputStream {
+
+        private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+        private final BlockingQueue<ByteBuffer> chunks = new LinkedBlockingQueue<>();
+        private final Flow.Subscription subscription;
+        private ByteBuffer current = ByteBuffer.allocate(0);
+        private volatile Throwable error;
+
+        ChunkInputStream(@NotNull Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : (b[0] & 0xff);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+
+            while (!current.hasRemaining()) {
+                if (current == END) {
+                    if (error != null) {
+                        throw new IOException("Unable to receive XML document.", error);
+                    }
+                    return -1;
+                }
+
+                try {
+                    current = chunks.take();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for next chunk.");
+                }
+
+                if (current != END) {
+                    subscription.request(1);
+                }
+            }
+
+            int count = Math.min(len, current.remaining());
+            current.get(b, off, count);
+
+            return count;
+        }
+
+    }
+
+}
@@ -0,0 +1,357 @@
+/*
+ * XML Tools
+ * Copyright (c) 2023-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.xmltools;
+
+import org.jetbrains.annotations.NotNull;
+import org.xml.sax.Attributes;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Limits of the resources which will be used to read an XML document.
+ * <p>
+ * The limits of bytes, depth, elements and attributes are checked while reading and parsing the document. The limits
+ * of key length and key values are checked while passing the key values of a conversion to the sink, which happens
+ * after the whole document was parsed. A {@link XmlLimitExceededException} will be thrown as soon as a limit is
+ * exceeded. By default, nothing is limited.
+ */
+public class XmlLimits {
+
+    private long maxBytes = Long.MAX_VALUE;
+    private int maxDepth = Integer.MAX_VALUE;
+    private long maxElements = Long.MAX_VALUE;
+    private int maxAttributes = Integer.MAX_VALUE;
+    private int maxKeyLength = Integer.MAX_VALUE;
+    private long maxEntries = Long.MAX_VALUE;
+
+    /**
+     * Returns the maximum number of bytes of a document.
+     *
+     * @return Maximum number of bytes
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Set the maximum number of bytes of a document.
+     *
+     * @param maxBytes Maximum number of bytes
+     * @return This instance
+     */
+    public XmlLimits setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        return this;
+    }
+
+    /**
+     * Returns the maximum nesting depth of elements. The root element has depth 1.
+     *
+     * @return Maximum depth
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Set the maximum nesting depth of elements. The root element has depth 1.
+     *
+     * @param maxDepth Maximum depth
+     * @return This instance
+     */
+    public XmlLimits setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    /**
+     * Returns the maximum number of elements of a document.
+     *
+     * @return Maximum number of elements
+     */
+    public long getMaxElements() {
+        return maxElements;
+    }
+
+    /**
+     * Set the maximum number of elements of a document.
+     *
+     * @param maxElements Maximum number of elements
+     * @return This instance
+     */
+    public XmlLimits setMaxElements(long maxElements) {
+        this.maxElements = maxElements;
+        return this;
+    }
+
+    /**
+     * Returns the maximum number of attributes of a single element.
+     *
+     * @return Maximum number of attributes
+     */
+    public int getMaxAttributes() {
+        return maxAttributes;
+    }
+
+    /**
+     * Set the maximum number of attributes of a single element.
+     *
+     * @param maxAttributes Maximum number of attributes
+     * @return This instance
+     */
+    public XmlLimits setMaxAttributes(int maxAttributes) {
+        this.maxAttributes = maxAttributes;
+        return this;
+    }
+
+    /**
+     * Returns the maximum length of a key of a key value conversion.
+     *
+     * @return Maximum key length
+     */
+    public int getMaxKeyLength() {
+        return maxKeyLength;
+    }
+
+    /**
+     * Set the maximum length of a key of a key value conversion.
+     * <p>
+     * Note, keys are created after the whole document was parsed, so this limit doesn't bound the memory of parsing.
+     * Use it together with the limits of bytes, depth and elements.
+     *
+     * @param maxKeyLength Maximum key length
+     * @return This instance
+     */
+    public XmlLimits setMaxKeyLength(int maxKeyLength) {
+        this.maxKeyLength = maxKeyLength;
+        return this;
+    }
+
+    /**
+     * Returns the maximum number of key values of a key value conversion.
+     *
+     * @return Maximum number of key values
+     */
+    public long getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Set the maximum number of key values of a key value conversion.
+     * <p>
+     * Note, key values are created after the whole document was parsed, so this limit doesn't bound the memory of
+     * parsing. Use it together with the limits of bytes, depth and elements.
+     *
+     * @param maxEntries Maximum number of key values
+     * @return This instance
+     */
+    public XmlLimits setMaxEntries(long maxEntries) {
+        this.maxEntries = maxEntries;
+        return this;
+    }
+
+    /**
+     * Returns an input stream which fails when more than {@link #getMaxBytes()} bytes are read.
+     *
+     * @param in Input stream to limit
+     * @return Limited input stream but never null
+     */
+    @NotNull
+    InputStream limit(@NotNull InputStream in) {
+        return maxBytes == Long.MAX_VALUE ? in : new LimitedInputStream(in);
+    }
+
+    /**
+     * Returns a sink which fails when a key is longer than {@link #getMaxKeyLength()} or more than
+     * {@link #getMaxEntries()} key values are passed.
+     *
+     * @param sink Sink to limit
+     * @return Limited sink which is a {@link TypedKeyValueSink} when the given sink is one
+     */
+    @NotNull
+    KeyValueSink limit(@NotNull KeyValueSink sink) {
+        return sink instanceof TypedKeyValueSink typedSink ? new LimitedTypedSink(typedSink) : new LimitedSink(sink);
+    }
+
+    /**
+     * Creates an XML reader which checks depth, number of elements and number of attributes of every element.
+     * <p>
+     * Secure processing is enabled on the underlying parser.
+     *
+     * @param namespaceAware When true, the reader supports namespaces
+     * @return The XML reader but never null
+     * @throws ParserConfigurationException Thrown when unable to create the parser
+     * @throws SAXException Thrown when unable to create the parser
+     */
+    @NotNull
+    XMLReader createXmlReader(boolean namespaceAware) throws ParserConfigurationException, SAXException {
+        SAXParserFactory spf = SAXParserFactory.newInstance();
+        spf.setNamespaceAware(namespaceAware);
+        spf.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+
+        return new LimitFilter(spf.newSAXParser().getXMLReader());
+    }
+
+    private class LimitedInputStream extends FilterInputStream {
+
+        private long count;
+
+        LimitedInputStream(@NotNull InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        private void count(long n) {
+            count += n;
+            if (count > maxBytes) {
+                throw new XmlLimitExceededException("Document exceeds the maximum size of " + maxBytes + " bytes.");
+            }
+        }
+
+    }
+
+    private class LimitFilter extends XMLFilterImpl {
+
+        private Locator locator;
+        private int depth;
+        private long elements;
+
+        LimitFilter(@NotNull XMLReader parent) {
+            super(parent);
+        }
+
+        @Override
+        public void setDocumentLocator(Locator locator) {
+            this.locator = locator;
+            super.setDocumentLocator(locator);
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+            if (++depth > maxDepth) {
+                throw new XmlLimitExceededException("Element '" + qName + "'" + location() + " exceeds the maximum depth of " + maxDepth + ".");
+            } else if (++elements > maxElements) {
+                throw new XmlLimitExceededException("Element '" + qName + "'" + location() + " exceeds the maximum number of " + maxElements + " elements.");
+            } else if (atts.getLength() > maxAttributes) {
+                throw new XmlLimitExceededException("Element '" + qName + "'" + location() + " exceeds the maximum number of " + maxAttributes + " attributes.");
+            }
+
+            super.startElement(uri, localName, qName, atts);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            depth--;
+            super.endElement(uri, localName, qName);
+        }
+
+        @NotNull
+        private String location() {
+            return locator == null ? "" : " at line " + locator.getLineNumber() + ", column " + locator.getColumnNumber();
+        }
+
+    }
+
+    private class LimitedSink implements KeyValueSink {
+
+        private final KeyValueSink sink;
+        private long entries;
+
+        LimitedSink(@NotNull KeyValueSink sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void accept(@NotNull String key, @NotNull String value) {
+            check(key);
+            sink.accept(key, value);
+        }
+
+        void check(@NotNull String key) {
+            if (key.length() > maxKeyLength) {
+                throw new XmlLimitExceededException("Key '" + key.substring(0, Math.min(key.length(), 100)) + "...' exceeds the maximum length of " + maxKeyLength + " characters.");
+            } else if (++entries > maxEntries) {
+                throw new XmlLimitExceededException("Document exceeds the maximum number of " + maxEntries + " key values.");
+            }
+        }
+
+    }
+
+    private class LimitedTypedSink extends LimitedSink implements TypedKeyValueSink {
+
+        private final TypedKeyValueSink sink;
+
+        LimitedTypedSink(@NotNull TypedKeyValueSink sink) {
+            super(sink);
+            this.sink = sink;
+        }
+
+        @Override
+        public void acceptLong(@NotNull String key, long value) {
+            check(key);
+            sink.acceptLong(key, value);
+        }
+
+        @Override
+        public void acceptDouble(@NotNull String key, double value) {
+            check(key);
+            sink.acceptDouble(key, value);
+        }
+
+        @Override
+        public void acceptBoolean(@NotNull String key, boolean value) {
+            check(key);
+            sink.acceptBoolean(key, value);
+        }
+
+    }
+
+}
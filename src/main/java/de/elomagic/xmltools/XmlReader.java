@@ -22,7 +22,11 @@ import jakarta.xml.bind.JAXBException;
 import jakarta.xml.bind.Unmarshaller;
 
 import org.jetbrains.annotations.NotNull;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
 
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.sax.SAXSource;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -66,7 +70,7 @@ public class XmlReader {
      */
     @NotNull
     public static <T> T read(@NotNull final Reader reader, @NotNull final Class<? extends T> clazz) throws JAXBException {
-        JAXBContext context = JAXBContext.newInstance(clazz);
+        JAXBContext context = JaxbContextCache.get(clazz);
         Unmarshaller m = context.createUnmarshaller();
 
         return (T)m.unmarshal(reader);
@@ -103,4 +107,51 @@ public class XmlReader {
         }
     }
 
+    /**
+     * Read a JAXB annotated object from an input stream and check the limits while parsing.
+     * <p>
+     * The document will be parsed by a SAX parser with secure processing.
+     *
+     * @param in InputStream
+     * @param clazz Class type of XML Object
+     * @param limits Limits of the document
+     * @return Returns new instance of given class "clazz" parameter
+     * @param <T> tbd
+     * @throws JAXBException Thrown when unable to read XML into object
+     * @throws XmlLimitExceededException Thrown when the document exceeds the limits
+     */
+    @NotNull
+    public static <T> T read(@NotNull final InputStream in, @NotNull final Class<? extends T> clazz, @NotNull final XmlLimits limits) throws JAXBException {
+        try {
+            InputSource source = new InputSource(limits.limit(in));
+            source.setEncoding(StandardCharsets.UTF_8.name());
+
+            JAXBContext context = JaxbContextCache.get(clazz);
+            Unmarshaller m = context.createUnmarshaller();
+
+            return (T)m.unmarshal(new SAXSource(limits.createXmlReader(true), source));
+        } catch (ParserConfigurationException | SAXException ex) {
+            throw new JAXBException("Unable to create XML parser.", ex);
+        }
+    }
+
+    /**
+     * Read a JAXB annotated object from file and check the limits while parsing.
+     *
+     * @param file File
+     * @param clazz Class type of object to be read
+     * @param limits Limits of the document
+     * @return Returns new instance of given class "clazz" parameter
+     * @param <T> tbd
+     * @throws JAXBException Thrown when unable to read XML file into object
+     * @throws IOException Thrown when unable to read XML from ile
+     * @throws XmlLimitExceededException Thrown when the document exceeds the limits
+     */
+    @NotNull
+    public static <T> T read(@NotNull final Path file, @NotNull final Class<? extends T> clazz, @NotNull final XmlLimits limits) throws JAXBException, IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return read(in, clazz, limits);
+        }
+    }
+
 }
@@ -0,0 +1,94 @@
+/*
+ * XML Tools
+ * Copyright (c) 2023-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.xmltools;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+
+import org.jetbrains.annotations.NotNull;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Tooling class to initialize the XML providers and JAXB contexts before first use.
+ * <p>
+ * Provider discovery, context creation and class loading dominate the runtime of the first read, write or conversion.
+ * Short living processes can call {@link #warmUp(Class[])} at startup or ship a class data sharing archive which was
+ * created by a training run of {@link #main(String[])}.
+ */
+public class XmlWarmUp {
+
+    private static final String SAMPLE = "<root a=\"1\"><item>1</item><item><value>true</value></item></root>";
+
+    private XmlWarmUp() {
+    }
+
+    /**
+     * Resolves the XML providers, converts a small sample document in both directions and creates the JAXB contexts,
+     * marshallers, unmarshallers and write plans of the given classes.
+     * <p>
+     * The created JAXB contexts are cached and used by {@link XmlReader} and {@link XmlWriter}.
+     *
+     * @param classes JAXB annotated classes which will be read or written
+     * @throws JAXBException Thrown when unable to create a JAXB context
+     * @throws ParserConfigurationException Thrown when unable to create an XML parser
+     * @throws IOException Thrown when unable to convert the sample document
+     * @throws SAXException Thrown when unable to parse the sample document
+     * @throws TransformerConfigurationException Thrown when unable to create an XML transformer
+     */
+    public static void warmUp(@NotNull Class<?>... classes) throws JAXBException, ParserConfigurationException, IOException, SAXException, TransformerConfigurationException {
+
+        Map<String, String> keyValues = new Xml2KeyValueConverter().convert(new ByteArrayInputStream(SAMPLE.getBytes(StandardCharsets.UTF_8)));
+        new KeyValue2XmlConverter().convert(keyValues);
+        TransformerFactory.newInstance().newTransformer();
+
+        for (Class<?> clazz : classes) {
+            JAXBContext context = JaxbContextCache.get(clazz);
+            context.createMarshaller();
+            context.createUnmarshaller();
+            XmlWritePlan.of(clazz);
+        }
+    }
+
+    /**
+     * Training run to create a class data sharing archive.
+     * <p>
+     * Loads the given classes and runs {@link #warmUp(Class[])}. Run it with
+     * <code>java -XX:ArchiveClassesAtExit=xmltools.jsa -cp &lt;classpath&gt; de.elomagic.xmltools.XmlWarmUp
+     * [class names]</code> and start the application with <code>-XX:SharedArchiveFile=xmltools.jsa</code>.
+     *
+     * @param args Fully qualified names of JAXB annotated classes
+     * @throws Exception Thrown when unable to load a class or to warm up
+     */
+    public static void main(String[] args) throws Exception {
+        Class<?>[] classes = new Class<?>[args.length];
+        for (int i = 0; i < args.length; i++) {
+            classes[i] = Class.forName(args[i]);
+        }
+
+        warmUp(classes);
+    }
+
+}
@@ -0,0 +1,570 @@
+/*
+ * XML Tools
+ * Copyright (c) 2023-present Carsten Rambow
+ * mailto:developer AT elomagic DOT de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.elomagic.xmltools;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlAttribute;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlEnum;
+import jakarta.xml.bind.annotation.XmlEnumValue;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import jakarta.xml.bind.annotation.XmlTransient;
+import jakarta.xml.bind.annotation.XmlType;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Precomputed plan to write a JAXB annotated object without the JAXB runtime.
+ * <p>
+ * A plan will be compiled once per class and contains the ordered element and attribute properties with
+ * {@link MethodHandle} accessors to the fields. The written document is equal to the formatted output of the JAXB
+ * marshaller, except of supplementary characters which will be written as they are.
+ * <p>
+ * Only a subset of JAXB is supported. The root class and all nested classes must be annotated with
+ * {@link XmlAccessorType} {@link XmlAccessType#FIELD}, must not extend another class and must not use namespaces. Their
+ * packages must not have any JAXB annotation.
+ * Fields must be strings, primitives, primitive wrappers, enums, nested classes or lists of them and may only be
+ * annotated with {@link XmlElement}, {@link XmlAttribute} or {@link XmlTransient}. For any other class no plan will be
+ * compiled.
+ */
+final class XmlWritePlan {
+
+    private static final String JAXB_DEFAULT = "##default";
+    private static final Pattern SIMPLE_FIELD_NAME = Pattern.compile("^[a-z]+([A-Z][a-z0-9]*)*$");
+    private static final Pattern SIMPLE_CLASS_NAME = Pattern.compile("^[A-Z][a-z0-9]+([A-Z][a-z0-9]*)*$");
+    private static final Set<Class<? extends Annotation>> SUPPORTED_CLASS_ANNOTATIONS = Set.of(
+            XmlRootElement.class, XmlAccessorType.class, XmlType.class);
+    private static final Set<Class<? extends Annotation>> SUPPORTED_FIELD_ANNOTATIONS = Set.of(
+            XmlElement.class, XmlAttribute.class, XmlTransient.class);
+    private static final Map<Class<?>, Kind> KINDS = Map.ofEntries(
+            Map.entry(String.class, Kind.TEXT),
+            Map.entry(int.class, Kind.INT),
+            Map.entry(short.class, Kind.INT),
+            Map.entry(byte.class, Kind.INT),
+            Map.entry(long.class, Kind.LONG),
+            Map.entry(boolean.class, Kind.BOOLEAN),
+            Map.entry(double.class, Kind.DOUBLE),
+            Map.entry(float.class, Kind.FLOAT),
+            Map.entry(Integer.class, Kind.TEXT),
+            Map.entry(Short.class, Kind.TEXT),
+            Map.entry(Byte.class, Kind.TEXT),
+            Map.entry(Long.class, Kind.TEXT),
+            Map.entry(Boolean.class, Kind.TEXT),
+            Map.entry(Double.class, Kind.BOXED_DOUBLE),
+            Map.entry(Float.class, Kind.BOXED_FLOAT));
+
+    private static final ClassValue<Optional<XmlWritePlan>> PLANS = new ClassValue<>() {
+        @Override
+        protected Optional<XmlWritePlan> computeValue(Class<?> type) {
+            try {
+                return Optional.of(compile(type));
+            } catch (UnsupportedTypeException | IllegalAccessException ex) {
+                return Optional.empty();
+            }
+        }
+    };
+
+    private enum Kind {
+        TEXT,
+        INT,
+        LONG,
+        BOOLEAN,
+        DOUBLE,
+        FLOAT,
+        BOXED_DOUBLE,
+        BOXED_FLOAT,
+        ENUM,
+        COMPLEX
+    }
+
+    private record Property(@NotNull String name, @NotNull Kind kind, @NotNull MethodHandle getter, boolean list, @Nullable TypePlan type) {
+    }
+
+    private static final class TypePlan {
+        private final List<Property> attributes = new ArrayList<>();
+        private final List<Property> elements = new ArrayList<>();
+    }
+
+    private static class UnsupportedTypeException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedTypeException(@NotNull String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    private final String rootName;
+    private final TypePlan type;
+
+    private XmlWritePlan(@NotNull String rootName, @NotNull TypePlan type) {
+        this.rootName = rootName;
+        this.type = type;
+    }
+
+    /**
+     * Returns the plan of a class. The plan will be compiled on first access.
+     *
+     * @param type Class of the objects to write
+     * @return Returns the plan or an empty {@link Optional} when the class is not supported
+     */
+    @NotNull
+    static Optional<XmlWritePlan> of(@NotNull Class<?> type) {
+        return PLANS.get(type);
+    }
+
+    /**
+     * Writes an object as formatted XML document.
+     *
+     * @param writer Writer
+     * @param o Object of the class of this plan
+     * @throws IOException Thrown when unable to write into the writer
+     */
+    void write(@NotNull Writer writer, @NotNull Object o) throws IOException {
+        writer.write("<?xml version=\"1.0\" encoding=\"utf-8\" standalone=\"yes\"?>\n");
+        writeElement(writer, rootName, type, o, 0);
+        writer.write('\n');
+    }
+
+    @NotNull
+    private static XmlWritePlan compile(@NotNull Class<?> clazz) throws UnsupportedTypeException, IllegalAccessException {
+
+        XmlRootElement rootElement = clazz.getAnnotation(XmlRootElement.class);
+        if (rootElement == null) {
+            throw new UnsupportedTypeException("Missing XmlRootElement annotation.");
+        } else if (!JAXB_DEFAULT.equals(rootElement.namespace())) {
+            throw new UnsupportedTypeException("Namespaces not supported.");
+        }
+
+        String rootName = rootElement.name();
+        if (JAXB_DEFAULT.equals(rootName)) {
+            rootName = clazz.getSimpleName();
+            if (!SIMPLE_CLASS_NAME.matcher(rootName).matches()) {
+                throw new UnsupportedTypeException("Unsupported class name " + rootName + ".");
+            }
+
+            rootName = Character.toLowerCase(rootName.charAt(0)) + rootName.substring(1);
+        }
+
+        return new XmlWritePlan(rootName, compileType(clazz, new HashMap<>()));
+    }
+
+    @NotNull
+    private static TypePlan compileType(@NotNull Class<?> clazz, @NotNull Map<Class<?>, TypePlan> plans) throws UnsupportedTypeException, IllegalAccessException {
+
+        TypePlan plan = plans.get(clazz);
+        if (plan != null) {
+            return plan;
+        }
+
+        XmlAccessorType accessorType = clazz.getAnnotation(XmlAccessorType.class);
+        if (accessorType == null || accessorType.value() != XmlAccessType.FIELD) {
+            throw new UnsupportedTypeException("Only field access supported.");
+        } else if (clazz.getSuperclass() != Object.class) {
+            throw new UnsupportedTypeException("Super classes not supported.");
+        }
+
+        // Package annotations like namespaces, accessor order or type adapters apply to all classes of the package
+        if (clazz.getPackage() != null) {
+            checkAnnotations(clazz.getPackage(), Set.of());
+        }
+        checkAnnotations(clazz, SUPPORTED_CLASS_ANNOTATIONS);
+        for (Method method : clazz.getDeclaredMethods()) {
+            checkAnnotations(method, Set.of());
+        }
+
+        plan = new TypePlan();
+        plans.put(clazz, plan);
+
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(clazz, MethodHandles.lookup());
+
+        Map<String, Property> elements = new LinkedHashMap<>();
+        for (Field field : clazz.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers())
+                    || Modifier.isTransient(field.getModifiers())
+                    || field.isSynthetic()
+                    || field.isAnnotationPresent(XmlTransient.class)) {
+                continue;
+            }
+
+            checkAnnotations(field, SUPPORTED_FIELD_ANNOTATIONS);
+
+            XmlAttribute attribute = field.getAnnotation(XmlAttribute.class);
+            if (attribute != null) {
+                plan.attributes.add(compileAttribute(field, attribute, lookup));
+            } else {
+                elements.put(field.getName(), compileElement(field, lookup, plans));
+            }
+        }
+
+        plan.elements.addAll(orderElements(clazz, elements));
+
+        return plan;
+    }
+
+    @NotNull
+    private static Property compileAttribute(@NotNull Field field,
+                                             @NotNull XmlAttribute attribute,
+                                             @NotNull MethodHandles.Lookup lookup) throws UnsupportedTypeException, IllegalAccessException {
+
+        if (!JAXB_DEFAULT.equals(attribute.namespace())) {
+            throw new UnsupportedTypeException("Namespaces not supported.");
+        }
+
+        Kind kind = simpleKind(field.getType());
+        if (kind == null) {
+            throw new UnsupportedTypeException("Unsupported attribute type " + field.getType() + ".");
+        }
+
+        return new Property(propertyName(field, attribute.name()), kind, getter(field, lookup), false, null);
+    }
+
+    @NotNull
+    private static Property compileElement(@NotNull Field field,
+                                           @NotNull MethodHandles.Lookup lookup,
+                                           @NotNull Map<Class<?>, TypePlan> plans) throws UnsupportedTypeException, IllegalAccessException {
+
+        XmlElement element = field.getAnnotation(XmlElement.class);
+        if (element != null && (!JAXB_DEFAULT.equals(element.namespace())
+                || element.nillable()
+                || element.type() != XmlElement.DEFAULT.class
+                || !"\u0000".equals(element.defaultValue()))) {
+            throw new UnsupportedTypeException("Unsupported element declaration of field " + field.getName() + ".");
+        }
+
+        String name = propertyName(field, element == null ? JAXB_DEFAULT : element.name());
+
+        Class<?> type = field.getType();
+        boolean list = false;
+        if (type == List.class || type == Collection.class) {
+            type = listItemType(field.getGenericType());
+            list = true;
+        }
+
+        Kind kind = simpleKind(type);
+        TypePlan typePlan = null;
+        if (kind == null) {
+            if (type.isPrimitive() || type.isArray() || type.isInterface() || type.getName().startsWith("java.")) {
+                throw new UnsupportedTypeException("Unsupported element type " + type + ".");
+            }
+
+            kind = Kind.COMPLEX;
+            typePlan = compileType(type, plans);
+        }
+
+        return new Property(name, kind, getter(field, lookup), list, typePlan);
+    }
+
+    @NotNull
+    private static Collection<Property> orderElements(@NotNull Class<?> clazz, @NotNull Map<String, Property> elements) throws UnsupportedTypeException {
+
+        XmlType xmlType = clazz.getAnnotation(XmlType.class);
+        if (xmlType == null) {
+            return elements.values();
+        } else if (!JAXB_DEFAULT.equals(xmlType.namespace()) || xmlType.factoryClass() != XmlType.DEFAULT.class) {
+            throw new UnsupportedTypeException("Unsupported type declaration.");
+        } else if (Arrays.equals(xmlType.propOrder(), new String[] {""})) {
+            return elements.values();
+        }
+
+        List<Property> ordered = new ArrayList<>();
+        for (String fieldName : xmlType.propOrder()) {
+            Property property = elements.get(fieldName);
+            if (property == null) {
+                throw new UnsupportedTypeException("Unsupported property order.");
+            }
+            ordered.add(property);
+        }
+
+        if (ordered.size() != elements.size()) {
+            throw new UnsupportedTypeException("Unsupported property order.");
+        }
+
+        return ordered;
+    }
+
+    @NotNull
+    private static Class<?> listItemType(@NotNull Type type) throws UnsupportedTypeException {
+        if (type instanceof ParameterizedType parameterizedType
+                && parameterizedType.getActualTypeArguments()[0] instanceof Class<?> itemType) {
+            return itemType;
+        }
+
+        throw new UnsupportedTypeException("Unsupported list type " + type + ".");
+    }
+
+    @Nullable
+    private static Kind simpleKind(@NotNull Class<?> type) throws UnsupportedTypeException {
+        if (type.isEnum()) {
+            if (type.isAnnotationPresent(XmlEnum.class)
+                    || Arrays.stream(type.getDeclaredFields()).anyMatch(f -> f.isAnnotationPresent(XmlEnumValue.class))) {
+                throw new UnsupportedTypeException("Unsupported enum " + type + ".");
+            }
+            return Kind.ENUM;
+        }
+
+        return KINDS.get(type);
+    }
+
+    @NotNull
+    private static String propertyName(@NotNull Field field, @NotNull String name) throws UnsupportedTypeException {
+        if (!JAXB_DEFAULT.equals(name)) {
+            return name;
+        } else if (!SIMPLE_FIELD_NAME.matcher(field.getName()).matches()) {
+            throw new UnsupportedTypeException("Unsupported field name " + field.getName() + ".");
+        }
+
+        return field.getName();
+    }
+
+    @NotNull
+    private static MethodHandle getter(@NotNull Field field, @NotNull MethodHandles.Lookup lookup) throws IllegalAccessException {
+        MethodHandle getter = lookup.unreflectGetter(field);
+        Class<?> type = field.getType();
+
+        return getter.asType(MethodType.methodType(
+                type == short.class || type == byte.class ? int.class : (type.isPrimitive() ? type : Object.class),
+                Object.class));
+    }
+
+    private static void checkAnnotations(@NotNull AnnotatedElement element, @NotNull Set<Class<? extends Annotation>> supported) throws UnsupportedTypeException {
+        for (Annotation annotation : element.getDeclaredAnnotations()) {
+            if (annotation.annotationType().getPackageName().startsWith("jakarta.xml.bind") && !supported.contains(annotation.annotationType())) {
+                throw new UnsupportedTypeException("Unsupported annotation " + annotation + ".");
+            }
+        }
+    }
+
+    private void writeElement(@NotNull Writer writer, @NotNull String name, @NotNull TypePlan plan, @NotNull Object o, int depth) throws IOException {
+
+        writer.write('<');
+        writer.write(name);
+
+        for (Property attribute : plan.attributes) {
+            String value = format(attribute, o);
+            if (value != null) {
+                writer.write(' ');
+                writer.write(attribute.name());
+                writer.write("=\"");
+                escape(writer, value, true);
+                writer.write('"');
+            }
+        }
+
+        boolean open = false;
+        for (Property element : plan.elements) {
+            if (!element.list() && element.kind() != Kind.COMPLEX) {
+                String text = format(element, o);
+                if (text != null) {
+                    open = openElement(writer, open);
+                    indent(writer, depth + 1);
+                    writeTextElement(writer, element.name(), text);
+                }
+                continue;
+            }
+
+            Object value = invoke(element, o);
+            if (value == null) {
+                continue;
+            }
+
+            if (element.list()) {
+                for (Object item : (Collection<?>)value) {
+                    open = openElement(writer, open);
+                    if (item == null) {
+                        indent(writer, depth + 1);
+                        writeNilElement(writer, element.name());
+                    } else {
+                        writeChild(writer, element, item, depth + 1, element.kind() != Kind.COMPLEX);
+                    }
+                }
+            } else {
+                open = openElement(writer, open);
+                writeChild(writer, element, value, depth + 1, false);
+            }
+        }
+
+        if (open) {
+            indent(writer, depth);
+            writer.write("</");
+            writer.write(name);
+            writer.write('>');
+        } else {
+            writer.write("/>");
+        }
+    }
+
+    private void writeChild(@NotNull Writer writer, @NotNull Property property, @NotNull Object value, int depth, boolean item) throws IOException {
+        indent(writer, depth);
+        if (item) {
+            writeTextElement(writer, property.name(), formatValue(property.kind(), value));
+        } else {
+            writeElement(writer, property.name(), property.type(), value, depth);
+        }
+    }
+
+    private static boolean openElement(@NotNull Writer writer, boolean open) throws IOException {
+        if (!open) {
+            writer.write('>');
+        }
+        return true;
+    }
+
+    private static void writeTextElement(@NotNull Writer writer, @NotNull String name, @NotNull String text) throws IOException {
+        writer.write('<');
+        writer.write(name);
+        writer.write('>');
+        escape(writer, text, false);
+        writer.write("</");
+        writer.write(name);
+        writer.write('>');
+    }
+
+    /**
+     * Writes a null list item like JAXB, which declares the XML schema instance namespace on the item itself.
+     */
+    private static void writeNilElement(@NotNull Writer writer, @NotNull String name) throws IOException {
+        writer.write('<');
+        writer.write(name);
+        writer.write(" xsi:nil=\"true\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"/>");
+    }
+
+    private static void indent(@NotNull Writer writer, int depth) throws IOException {
+        writer.write('\n');
+        for (int i = 0; i < depth; i++) {
+            writer.write("    ");
+        }
+    }
+
+    @Nullable
+    private static Object invoke(@NotNull Property property, @NotNull Object o) throws IOException {
+        try {
+            return (Object)property.getter().invokeExact(o);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new IOException("Unable to read property " + property.name() + ".", ex);
+        }
+    }
+
+    /**
+     * Returns the formatted value of a simple property of an object.
+     */
+    @Nullable
+    private static String format(@NotNull Property property, @NotNull Object o) throws IOException {
+        try {
+            return switch (property.kind()) {
+                case INT -> Integer.toString((int)property.getter().invokeExact(o));
+                case LONG -> Long.toString((long)property.getter().invokeExact(o));
+                case BOOLEAN -> Boolean.toString((boolean)property.getter().invokeExact(o));
+                case DOUBLE -> formatDouble((double)property.getter().invokeExact(o));
+                case FLOAT -> formatFloat((float)property.getter().invokeExact(o));
+                default -> {
+                    Object value = (Object)property.getter().invokeExact(o);
+                    yield value == null ? null : formatValue(property.kind(), value);
+                }
+            };
+        } catch (IOException | RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new IOException("Unable to read property " + property.name() + ".", ex);
+        }
+    }
+
+    @NotNull
+    private static String formatValue(@NotNull Kind kind, @NotNull Object value) {
+        return switch (kind) {
+            case BOXED_DOUBLE -> formatDouble((Double)value);
+            case BOXED_FLOAT -> formatFloat((Float)value);
+            case ENUM -> ((Enum<?>)value).name();
+            default -> value.toString();
+        };
+    }
+
+    @NotNull
+    private static String formatDouble(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        } else if (value == Double.POSITIVE_INFINITY) {
+            return "INF";
+        } else if (value == Double.NEGATIVE_INFINITY) {
+            return "-INF";
+        }
+
+        return Double.toString(value);
+    }
+
+    @NotNull
+    private static String formatFloat(float value) {
+        if (Float.isNaN(value)) {
+            return "NaN";
+        } else if (value == Float.POSITIVE_INFINITY) {
+            return "INF";
+        } else if (value == Float.NEGATIVE_INFINITY) {
+            return "-INF";
+        }
+
+        return Float.toString(value);
+    }
+
+    private static void escape(@NotNull Writer writer, @NotNull String value, boolean attribute) throws IOException {
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            String replacement = switch (value.charAt(i)) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> attribute ? "&quot;" : null;
+                default -> null;
+            };
+
+            if (replacement != null) {
+                writer.write(value, start, i - start);
+                writer.write(replacement);
+                start = i + 1;
+            }
+        }
+
+        writer.write(value, start, value.length() - start);
+    }
+
+}
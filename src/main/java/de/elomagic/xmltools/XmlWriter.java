@@ -19,6 +19,7 @@ package de.elomagic.xmltools;
 
 import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.MarshalException;
 import jakarta.xml.bind.Marshaller;
 
 import org.jetbrains.annotations.NotNull;
@@ -31,6 +32,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.Optional;
 
 /**
  * Tooling class for writing XML bind objects.
@@ -61,7 +63,7 @@ public class XmlWriter {
      * @throws JAXBException Thrown when unable to serialize the object into an XML document
      */
     public static void write(@NotNull final Writer writer, @NotNull final Object o) throws JAXBException {
-        JAXBContext context = JAXBContext.newInstance(o.getClass());
+        JAXBContext context = JaxbContextCache.get(o.getClass());
         Marshaller m = context.createMarshaller();
         m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
         m.setProperty(Marshaller.JAXB_ENCODING, "utf-8");
@@ -82,4 +84,45 @@ public class XmlWriter {
         }
     }
 
+    /**
+     * Write a JAXB annotated object to an output stream with UTF-8 by using a precompiled write plan of the class.
+     * <p>
+     * The plan will be compiled once per class and writes the fields by method handles without the JAXB runtime.
+     * Classes which are not supported by the plan will be written by {@link #write(OutputStream, Object)}.
+     *
+     * @param out Output stream
+     * @param o JAXB annotated object
+     * @throws JAXBException Thrown when unable to serialize the object into an XML document
+     */
+    public static void writeCompiled(@NotNull final OutputStream out, @NotNull final Object o) throws JAXBException {
+        OutputStreamWriter osw = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writeCompiled(osw, o);
+    }
+
+    /**
+     * Write a JAXB annotated object to a writer stream by using a precompiled write plan of the class.
+     * <p>
+     * The plan will be compiled once per class and writes the fields by method handles without the JAXB runtime.
+     * Classes which are not supported by the plan will be written by {@link #write(Writer, Object)}.
+     *
+     * @param writer Writer stream
+     * @param o JAXB annotated object
+     * @throws JAXBException Thrown when unable to serialize the object into an XML document
+     */
+    public static void writeCompiled(@NotNull final Writer writer, @NotNull final Object o) throws JAXBException {
+        Optional<XmlWritePlan> plan = XmlWritePlan.of(o.getClass());
+
+        if (plan.isEmpty()) {
+            write(writer, o);
+            return;
+        }
+
+        try {
+            plan.get().write(writer, o);
+            writer.flush();
+        } catch (IOException ex) {
+            throw new MarshalException(ex);
+        }
+    }
+
 }
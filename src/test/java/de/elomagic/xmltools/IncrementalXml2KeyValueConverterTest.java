@@ -0,0 +1,178 @@
+package de.elomagic.xmltools;
+
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class IncrementalXml2KeyValueConverterTest {
+
+    private Document load() throws Exception {
+        return DocumentBuilderFactory
+                .newInstance()
+                .newDocumentBuilder()
+                .parse(Objects.requireNonNull(getClass().getResourceAsStream("/sample01.xml")));
+    }
+
+    private Map<String, String> convertAll(Document document) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TransformerFactory.newInstance().newTransformer().transform(new DOMSource(document), new StreamResult(out));
+
+        return new Xml2KeyValueConverter().convert(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private Element child(Element parent, String name, int index) {
+        return ElementTool.streamChildElements(parent).filter(e -> e.getNodeName().equals(name)).skip(index).findFirst().orElseThrow();
+    }
+
+    @Test
+    void testMarkDirty() throws Exception {
+
+        Document document = load();
+        Element root = document.getDocumentElement();
+
+        IncrementalXml2KeyValueConverter converter = new IncrementalXml2KeyValueConverter(new Xml2KeyValueConverter(), document);
+        assertEquals(convertAll(document), converter.getKeyValues());
+
+        // Change text
+        Element subelement = child(child(root, "child1", 0), "subelement", 1);
+        subelement.setTextContent("99");
+        converter.markDirty(subelement.getFirstChild());
+        assertEquals("99", converter.getKeyValues().get("root.child1[1].subelement[2]"));
+        assertEquals(convertAll(document), converter.getKeyValues());
+
+        // Element with text gets elements inside, so the repetition indexes of the siblings change
+        Element childn = child(root, "childn", 2);
+        childn.setTextContent("");
+        childn.appendChild(document.createElement("value")).setTextContent("abc");
+        converter.markDirty(childn);
+        assertEquals(convertAll(document), converter.getKeyValues());
+
+        // Add element to a parent
+        Element child1 = child(root, "child1", 1);
+        child1.appendChild(document.createElement("subelement")).setTextContent("3");
+        converter.markDirty(child1);
+        assertEquals("3", converter.getKeyValues().get("root.child1[2].subelement[3]"));
+        assertEquals(convertAll(document), converter.getKeyValues());
+
+        // Remove attribute and element
+        Element child2 = child(root, "child2", 0);
+        child2.removeAttribute("attr1");
+        child2.removeChild(child(child2, "active", 0));
+        converter.markDirty(child2);
+        assertEquals(convertAll(document), converter.getKeyValues());
+    }
+
+    @Test
+    void testTrackMutations() throws Exception {
+
+        Document document = load();
+        Element root = document.getDocumentElement();
+
+        IncrementalXml2KeyValueConverter converter = new IncrementalXml2KeyValueConverter(new Xml2KeyValueConverter(), document)
+                .setTrackMutations(true);
+        assertEquals(convertAll(document), converter.getKeyValues());
+
+        child(child(root, "child1", 0), "checkInterval", 0).setTextContent("60");
+        child(root, "child2", 0).setAttribute("attr3", "new");
+        Element childn = child(root, "childn", 0);
+        childn.removeChild(child(childn, "checkInterval", 1));
+        child(root, "child3", 0).appendChild(document.createElement("active")).setTextContent("true");
+
+        assertEquals(convertAll(document), converter.getKeyValues());
+        assertEquals("60", converter.getKeyValues().get("root.child1[1].checkInterval"));
+        assertEquals("new", converter.getKeyValues().get("root.child2.child2#attr3"));
+        assertEquals("true", converter.getKeyValues().get("root.child3.active[2]"));
+    }
+
+    @Test
+    void testLiveView() throws Exception {
+
+        Document document = load();
+        Element root = document.getDocumentElement();
+
+        IncrementalXml2KeyValueConverter converter = new IncrementalXml2KeyValueConverter(new Xml2KeyValueConverter(), document);
+        Map<String, String> view = converter.getKeyValues();
+        Map<String, String> snapshot = new TreeMap<>(view);
+
+        Element subelement = child(child(root, "child1", 0), "subelement", 1);
+        subelement.setTextContent("99");
+        converter.markDirty(subelement);
+
+        assertSame(view, converter.getKeyValues());
+        assertEquals("99", view.get("root.child1[1].subelement[2]"));
+        assertEquals("2", snapshot.get("root.child1[1].subelement[2]"));
+
+        // Replaced document element converts the whole document into the same view
+        Element newRoot = document.createElement("other");
+        newRoot.appendChild(document.createElement("value")).setTextContent("1");
+        document.replaceChild(newRoot, root);
+
+        assertSame(view, converter.getKeyValues());
+        assertEquals(Map.of("other.value", "1"), view);
+    }
+
+    @Test
+    void testSiblingIndexes() throws Exception {
+
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        Element root = (Element)document.appendChild(document.createElement("root"));
+        for (int i = 0; i < 10_000; i++) {
+            Element item = (Element)root.appendChild(document.createElement("item"));
+            item.appendChild(document.createElement("value")).setTextContent(Integer.toString(i));
+        }
+
+        AtomicInteger childKeysCalls = new AtomicInteger();
+        Xml2KeyValueConverter xml2KeyValueConverter = new Xml2KeyValueConverter() {
+            @Override
+            Map<Element, String> childKeys(Element element, NameTable names) {
+                childKeysCalls.incrementAndGet();
+                return super.childKeys(element, names);
+            }
+        };
+
+        IncrementalXml2KeyValueConverter converter = new IncrementalXml2KeyValueConverter(xml2KeyValueConverter, document);
+        assertEquals(convertAll(document), converter.getKeyValues());
+
+        // Changing a leaf doesn't index the siblings again
+        childKeysCalls.set(0);
+        Element value = child(child(root, "item", 5000), "value", 0);
+        value.setTextContent("changed");
+        converter.markDirty(value);
+        assertEquals("changed", converter.getKeyValues().get("root.item[5001].value"));
+        assertEquals(0, childKeysCalls.get());
+
+        // Changing an attribute of an element with elements inside converts only its subtree
+        Element item = child(root, "item", 7000);
+        item.setAttribute("id", "7");
+        converter.markDirty(item.getAttributeNode("id"));
+        assertEquals("7", converter.getKeyValues().get("root.item[7001].item#id"));
+        assertEquals(1, childKeysCalls.get());
+
+        // Renaming an element changes the indexes of the old and the new named siblings
+        document.renameNode(child(root, "item", 3), null, "other");
+        converter.markDirty(child(root, "other", 0));
+        assertEquals(convertAll(document), converter.getKeyValues());
+
+        // Element with elements inside becomes a leaf, so it is indexed before its siblings
+        Element last = child(root, "item", 9998);
+        last.setTextContent("text");
+        converter.markDirty(last);
+        assertEquals("text", converter.getKeyValues().get("root.item[1]"));
+        assertEquals(convertAll(document), converter.getKeyValues());
+    }
+
+}
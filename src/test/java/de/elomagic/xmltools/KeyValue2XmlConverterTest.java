@@ -2,8 +2,11 @@ package de.elomagic.xmltools;
 
 import org.junit.jupiter.api.Test;
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 import org.xml.sax.SAXException;
 
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
@@ -13,11 +16,15 @@ import javax.xml.transform.stream.StreamResult;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class KeyValue2XmlConverterTest {
 
@@ -38,6 +45,82 @@ class KeyValue2XmlConverterTest {
         assertEquals("root", document.getDocumentElement().getNodeName());
     }
 
+    @Test
+    void testConvertParallel() throws ParserConfigurationException, IOException {
+
+        Properties properties = new Properties();
+        properties.load(getClass().getResourceAsStream("/sample01.properties"));
+
+        Map<String, String> map = new HashMap<>();
+        properties.forEach((key, value) -> map.put(key.toString(), Objects.toString(value, "")));
+        map.put("root", "text");
+        map.put("root.a-b.c", "1");
+        map.put("root.a#id", "2");
+        map.put("root.a[3].c", "3");
+        map.put("root.a[10].c", "4");
+        map.put("root.b[2]", "5");
+        for (int i = 1; i <= 500; i++) {
+            map.put("root.item[" + i + "].value", Integer.toString(i));
+            map.put("root.item[" + i + "].sub[2]#attr", Integer.toString(i));
+        }
+
+        String expected = serialize(new KeyValue2XmlConverter().convert(map).orElseThrow());
+        String result = serialize(new KeyValue2XmlConverter().setParallel(true).convert(map).orElseThrow());
+
+        assertEquals(expected, result);
+
+        List<Map.Entry<String, String>> entries = map.entrySet().stream().sorted(Map.Entry.comparingByKey()).toList();
+        DocumentBuilder db = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+
+        assertTrue(new KeyValue2XmlConverter().convertParallel(entries, db, db.newDocument(), new NameTable()));
+    }
+
+    @Test
+    void testConvertParallelFallback() throws ParserConfigurationException {
+
+        Map<String, String> map = Map.of("root#id.a", "1", "root.b", "2");
+
+        KeyValue2XmlConverter converter = new KeyValue2XmlConverter();
+        List<Map.Entry<String, String>> entries = map.entrySet().stream().sorted(Map.Entry.comparingByKey()).toList();
+        DocumentBuilder db = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        Document document = db.newDocument();
+
+        assertFalse(converter.convertParallel(entries, db, document, new NameTable()));
+        assertFalse(document.hasChildNodes());
+
+        String expected = serialize(converter.convert(map).orElseThrow());
+        String result = serialize(converter.setParallel(true).convert(map).orElseThrow());
+
+        assertEquals(expected, result);
+    }
+
+    @Test
+    void testSharedNameTable() throws ParserConfigurationException {
+
+        NameTable table = new NameTable();
+        KeyValue2XmlConverter converter = new KeyValue2XmlConverter().setNameTable(table);
+
+        Document document = converter.convert(Map.of(
+                new String("root.item[1].value"), "1",
+                new String("root.item[2].value"), "2")).orElseThrow();
+
+        Element first = (Element)document.getDocumentElement().getFirstChild();
+        Element second = (Element)first.getNextSibling();
+
+        assertSame(first.getNodeName(), second.getNodeName());
+        assertSame(table.canonicalize("item"), first.getNodeName());
+    }
+
+    private static String serialize(Document doc) {
+        try {
+            StringWriter sw = new StringWriter();
+            TransformerFactory.newInstance().newTransformer().transform(new DOMSource(doc), new StreamResult(sw));
+            return sw.toString();
+        } catch (Exception ex) {
+            throw new RuntimeException("Error converting to String", ex);
+        }
+    }
+
     public static String toString(Document doc) {
         try {
             StringWriter sw = new StringWriter();
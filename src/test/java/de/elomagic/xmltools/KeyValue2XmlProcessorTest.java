@@ -0,0 +1,118 @@
+package de.elomagic.xmltools;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyValue2XmlProcessorTest {
+
+    @Test
+    void testProcess() throws Exception {
+
+        Map<String, String> map = Map.of(
+                "root.a", "1",
+                "root.b[1].c", "2",
+                "root.b[2].c", "3",
+                "root.b[2]#id", "4"
+        );
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (SubmissionPublisher<Map.Entry<String, String>> source = new SubmissionPublisher<>()) {
+            KeyValue2XmlProcessor processor = new KeyValue2XmlProcessor(new KeyValue2XmlConverter(), executor);
+            source.subscribe(processor);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            var future = processor.consume(chunk -> out.write(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining()));
+
+            map.forEach((key, value) -> source.submit(new AbstractMap.SimpleImmutableEntry<>(key, value)));
+            source.close();
+
+            future.get(10, TimeUnit.SECONDS);
+
+            Map<String, String> result = new Xml2KeyValueConverter().convert(new ByteArrayInputStream(out.toByteArray()));
+
+            assertEquals(map.size(), result.size());
+            assertEquals("3", result.get("root.b[2].c"));
+            assertEquals("4", result.get("root.b[2].b#id"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testProcessSingleThread() throws Exception {
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (SubmissionPublisher<Map.Entry<String, String>> source = new SubmissionPublisher<>()) {
+            KeyValue2XmlProcessor processor = new KeyValue2XmlProcessor(new KeyValue2XmlConverter(), executor);
+            source.subscribe(processor);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            AtomicInteger chunks = new AtomicInteger();
+
+            processor.subscribe(new Flow.Subscriber<>() {
+                private Flow.Subscription subscription;
+
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    this.subscription = subscription;
+                    subscription.request(1);
+                }
+
+                @Override
+                public void onNext(ByteBuffer chunk) {
+                    out.write(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+                    chunks.incrementAndGet();
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                    subscription.request(1);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    done.completeExceptionally(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    done.complete(null);
+                }
+            });
+
+            String padding = "x".repeat(160);
+            for (int i = 1; i <= 40; i++) {
+                for (int j = 1; j <= 400; j++) {
+                    source.submit(new AbstractMap.SimpleImmutableEntry<>("root.g[" + i + "].v[" + j + "]", padding + j));
+                }
+            }
+            source.close();
+
+            done.get(60, TimeUnit.SECONDS);
+
+            assertTrue(chunks.get() > Flow.defaultBufferSize());
+
+            Map<String, String> result = new Xml2KeyValueConverter().convert(new ByteArrayInputStream(out.toByteArray()));
+
+            assertEquals(40 * 400, result.size());
+            assertEquals(padding + 400, result.get("root.g[40].v[400]"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+package de.elomagic.xmltools;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyValueColumnsTest {
+
+    @Test
+    void testConvert() throws Exception {
+
+        Xml2KeyValueConverter converter = new Xml2KeyValueConverter();
+
+        KeyValueColumns columns = new KeyValueColumns();
+        converter.convert(Objects.requireNonNull(getClass().getResourceAsStream("/sample01.xml")), columns);
+
+        Map<String, String> expected = converter.convert(Objects.requireNonNull(getClass().getResourceAsStream("/sample01.xml")));
+
+        assertEquals(expected.size(), columns.size());
+
+        for (int row = 0; row < columns.size(); row++) {
+            String key = columns.getKey(row);
+            assertEquals(expected.get(key), columns.getString(row), key);
+
+            switch (key) {
+                case "root.child1[1].subelement[2]" -> {
+                    assertEquals(KeyValueColumns.ValueType.LONG, columns.getType(row));
+                    assertEquals(2, columns.getLong(row));
+                }
+                case "root.child5.active" -> {
+                    assertEquals(KeyValueColumns.ValueType.BOOLEAN, columns.getType(row));
+                    assertFalse(columns.getBoolean(row));
+                }
+                case "root.childn[1]" -> assertEquals(KeyValueColumns.ValueType.STRING, columns.getType(row));
+                default -> {
+                    // Nothing to check
+                }
+            }
+        }
+    }
+
+    @Test
+    void testDecimal() throws Exception {
+
+        String xml = "<root><a>1.10</a><b>0.00001</b><c>2.5E400</c></root>";
+
+        KeyValueColumns columns = new KeyValueColumns();
+        new Xml2KeyValueConverter().convert(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), columns);
+
+        assertEquals(3, columns.size());
+
+        assertEquals(KeyValueColumns.ValueType.DOUBLE, columns.getType(0));
+        assertEquals(1.1, columns.getDouble(0));
+        assertEquals("1.1", columns.getString(0));
+
+        assertEquals(KeyValueColumns.ValueType.DOUBLE, columns.getType(1));
+        assertEquals(0.00001, columns.getDouble(1));
+        assertEquals("1.0E-5", columns.getString(1));
+
+        assertEquals(KeyValueColumns.ValueType.STRING, columns.getType(2));
+        assertEquals("2.5E400", columns.getString(2));
+    }
+
+    @Test
+    void testTypeMismatch() {
+
+        KeyValueColumns columns = new KeyValueColumns();
+        columns.acceptDouble("a", 1.5);
+        columns.acceptLong("b", 3);
+
+        assertEquals(1.5, columns.getDouble(0));
+        assertEquals(3.0, columns.getDouble(1));
+        assertThrows(IllegalStateException.class, () -> columns.getLong(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> columns.getKey(2));
+    }
+
+}
@@ -0,0 +1,34 @@
+package de.elomagic.xmltools;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class NameTableTest {
+
+    @Test
+    void testCanonicalize() {
+
+        NameTable table = new NameTable();
+
+        String name = table.canonicalize(new String("element"));
+
+        assertSame(name, table.canonicalize(new String("element")));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    void testMaxSize() {
+
+        NameTable table = new NameTable(1);
+
+        String name = table.canonicalize(new String("element"));
+        String overflow = table.canonicalize(new String("attribute"));
+
+        assertSame(name, table.canonicalize(new String("element")));
+        assertSame(overflow, table.canonicalize(new String("attribute")));
+        assertEquals(1, table.size());
+    }
+
+}
@@ -0,0 +1,46 @@
+package de.elomagic.xmltools;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TypedValueParserTest {
+
+    private KeyValueColumns.ValueType typeOf(String value) {
+        KeyValueColumns columns = new KeyValueColumns();
+        TypedValueParser.dispatch("key", value, columns);
+        return columns.getType(0);
+    }
+
+    @Test
+    void testDispatch() {
+
+        assertEquals(KeyValueColumns.ValueType.LONG, typeOf("0"));
+        assertEquals(KeyValueColumns.ValueType.LONG, typeOf("-42"));
+        assertEquals(KeyValueColumns.ValueType.LONG, typeOf("9223372036854775807"));
+        assertEquals(KeyValueColumns.ValueType.DOUBLE, typeOf("1.25"));
+        assertEquals(KeyValueColumns.ValueType.DOUBLE, typeOf("-0.5E-3"));
+        assertEquals(KeyValueColumns.ValueType.BOOLEAN, typeOf("true"));
+
+        assertEquals(KeyValueColumns.ValueType.STRING, typeOf(""));
+        assertEquals(KeyValueColumns.ValueType.STRING, typeOf("-"));
+        assertEquals(KeyValueColumns.ValueType.STRING, typeOf("-0"));
+        assertEquals(KeyValueColumns.ValueType.STRING, typeOf("007"));
+        assertEquals(KeyValueColumns.ValueType.STRING, typeOf("+1"));
+        assertEquals(KeyValueColumns.ValueType.STRING, typeOf("1."));
+        assertEquals(KeyValueColumns.ValueType.STRING, typeOf("1.5e"));
+        assertEquals(KeyValueColumns.ValueType.STRING, typeOf("9223372036854775808"));
+        assertEquals(KeyValueColumns.ValueType.STRING, typeOf("TRUE"));
+        assertEquals(KeyValueColumns.ValueType.STRING, typeOf("1 "));
+        assertEquals(KeyValueColumns.ValueType.STRING, typeOf("2.5E400"));
+        assertEquals(KeyValueColumns.ValueType.STRING, typeOf("1.0E-400"));
+        assertEquals(KeyValueColumns.ValueType.STRING, typeOf("12345678901234567890.25"));
+
+        assertEquals(KeyValueColumns.ValueType.DOUBLE, typeOf("0.0"));
+        assertEquals(KeyValueColumns.ValueType.DOUBLE, typeOf("1.10"));
+        assertEquals(KeyValueColumns.ValueType.STRING, typeOf("0.1234567890123456789"));
+        assertEquals(KeyValueColumns.ValueType.DOUBLE, typeOf("0.12345678901234568"));
+        assertEquals(KeyValueColumns.ValueType.DOUBLE, typeOf("1.7976931348623157E308"));
+    }
+
+}
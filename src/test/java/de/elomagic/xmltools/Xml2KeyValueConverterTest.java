@@ -1,7 +1,14 @@
 package de.elomagic.xmltools;
 
 import org.junit.jupiter.api.Test;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
 
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.Objects;
 
@@ -32,6 +39,71 @@ class Xml2KeyValueConverterTest {
         assertFalse(result.containsKey("abc"));
     }
 
+    @Test
+    void testLimits() throws Exception {
+
+        Map<String, String> expected = new Xml2KeyValueConverter().convert(Objects.requireNonNull(getClass().getResourceAsStream("/sample01.xml")));
+
+        XmlLimits limits = new XmlLimits()
+                .setMaxBytes(2000)
+                .setMaxDepth(3)
+                .setMaxElements(50)
+                .setMaxAttributes(2)
+                .setMaxKeyLength(40)
+                .setMaxEntries(26);
+        Xml2KeyValueConverter converter = new Xml2KeyValueConverter().setLimits(limits);
+
+        assertEquals(expected, converter.convert(Objects.requireNonNull(getClass().getResourceAsStream("/sample01.xml"))));
+
+        assertLimitExceeded(new XmlLimits().setMaxBytes(1000), "maximum size of 1000 bytes");
+        assertLimitExceeded(new XmlLimits().setMaxDepth(2), "Element 'subelement' at line 4");
+        assertLimitExceeded(new XmlLimits().setMaxElements(10), "maximum number of 10 elements");
+        assertLimitExceeded(new XmlLimits().setMaxAttributes(1), "Element 'child2'");
+        assertLimitExceeded(new XmlLimits().setMaxKeyLength(20), "maximum length of 20");
+        assertLimitExceeded(new XmlLimits().setMaxEntries(25), "maximum number of 25 key values");
+    }
+
+    private void assertLimitExceeded(XmlLimits limits, String message) {
+        Xml2KeyValueConverter converter = new Xml2KeyValueConverter().setLimits(limits);
+
+        XmlLimitExceededException ex = assertThrows(
+                XmlLimitExceededException.class,
+                () -> converter.convert(Objects.requireNonNull(getClass().getResourceAsStream("/sample01.xml"))));
+
+        assertTrue(ex.getMessage().contains(message), ex.getMessage());
+    }
+
+    @Test
+    void testSharedNameTable() throws Exception {
+
+        NameTable table = new NameTable();
+        Xml2KeyValueConverter converter = new Xml2KeyValueConverter().setNameTable(table);
+
+        StringBuilder sb = new StringBuilder("<root id=\"1\"><a>x</a>");
+        for (int i = 0; i < 1000; i++) {
+            sb.append("<item>").append(i).append("</item>");
+        }
+        String xml = sb.append("</root>").toString();
+
+        Map<String, String> result = converter.convert(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(1002, result.size());
+        // Only root, a, item and root#id but no indexed key items
+        assertEquals(4, table.size());
+
+        DocumentBuilder db = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        Element root1 = db.parse(new InputSource(new StringReader(xml))).getDocumentElement();
+        Element root2 = db.parse(new InputSource(new StringReader(xml))).getDocumentElement();
+
+        String key1 = converter.childKeys(root1, table).get((Element)root1.getElementsByTagName("a").item(0));
+        String key2 = converter.childKeys(root2, table).get((Element)root2.getElementsByTagName("a").item(0));
+
+        assertEquals("a", key1);
+        assertSame(key1, key2);
+        assertSame(table.canonicalize(new String("a")), key1);
+        assertEquals(4, table.size());
+    }
+
     @Test
     void testAddKeyPrefix() {
 
@@ -0,0 +1,181 @@
+package de.elomagic.xmltools;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Xml2KeyValueProcessorTest {
+
+    @Test
+    void testProcess() throws Exception {
+
+        byte[] xml = Objects.requireNonNull(getClass().getResourceAsStream("/sample01.xml")).readAllBytes();
+
+        Xml2KeyValueConverter converter = new Xml2KeyValueConverter();
+        Map<String, String> expected = converter.convert(Objects.requireNonNull(getClass().getResourceAsStream("/sample01.xml")));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (SubmissionPublisher<ByteBuffer> source = new SubmissionPublisher<>()) {
+            Xml2KeyValueProcessor processor = new Xml2KeyValueProcessor(converter, executor);
+            source.subscribe(processor);
+
+            Map<String, String> result = new HashMap<>();
+            var future = processor.consume(e -> result.put(e.getKey(), e.getValue()));
+
+            for (int i = 0; i < xml.length; i += 100) {
+                source.submit(ByteBuffer.wrap(Arrays.copyOfRange(xml, i, Math.min(xml.length, i + 100))));
+            }
+            source.close();
+
+            future.get(10, TimeUnit.SECONDS);
+
+            assertEquals(expected, result);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testProcessSingleThread() throws Exception {
+
+        int count = Flow.defaultBufferSize() * 8;
+        StringBuilder sb = new StringBuilder("<root>");
+        for (int i = 0; i < count; i++) {
+            sb.append("<item>").append(i).append("</item>");
+        }
+        byte[] xml = sb.append("</root>").toString().getBytes(StandardCharsets.UTF_8);
+
+        AtomicInteger emitted = new AtomicInteger();
+        Xml2KeyValueConverter converter = new Xml2KeyValueConverter() {
+            @Override
+            public void convert(@NotNull InputStream in, @NotNull KeyValueSink sink) throws ParserConfigurationException, IOException, SAXException {
+                super.convert(in, (key, value) -> {
+                    emitted.incrementAndGet();
+                    sink.accept(key, value);
+                });
+            }
+        };
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (SubmissionPublisher<ByteBuffer> source = new SubmissionPublisher<>()) {
+            Xml2KeyValueProcessor processor = new Xml2KeyValueProcessor(converter, executor);
+            source.subscribe(processor);
+
+            SlowSubscriber subscriber = new SlowSubscriber(emitted);
+            processor.subscribe(subscriber);
+
+            source.submit(ByteBuffer.wrap(xml));
+            source.close();
+
+            subscriber.done.get(30, TimeUnit.SECONDS);
+
+            assertEquals(count, subscriber.result.size());
+            assertEquals("0", subscriber.result.get("root.item[1]"));
+            assertEquals(Integer.toString(count - 1), subscriber.result.get("root.item[" + count + "]"));
+            // The parser was blocked while the buffer was full
+            assertTrue(subscriber.maxLag <= processor.getMaxBufferCapacity() + 1);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testReusedChunk() throws Exception {
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Xml2KeyValueProcessor processor = new Xml2KeyValueProcessor(new Xml2KeyValueConverter(), executor);
+            processor.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    // Chunks are passed directly
+                }
+
+                @Override
+                public void cancel() {
+                    // Nothing to cancel
+                }
+            });
+
+            ByteBuffer buffer = ByteBuffer.wrap("<root><a>1</a></root>".getBytes(StandardCharsets.UTF_8));
+            processor.onNext(buffer);
+            // Publisher reuses the buffer before the parser has read it
+            buffer.put(9, (byte)'2');
+            processor.onComplete();
+
+            Map<String, String> result = new HashMap<>();
+            processor.consume(e -> result.put(e.getKey(), e.getValue())).get(10, TimeUnit.SECONDS);
+
+            assertEquals(Map.of("root.a", "1"), result);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Subscriber which requests one key value after another and takes its time.
+     */
+    private static class SlowSubscriber implements Flow.Subscriber<Map.Entry<String, String>> {
+
+        private final AtomicInteger emitted;
+        private final Map<String, String> result = new HashMap<>();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private Flow.Subscription subscription;
+        private int maxLag;
+
+        SlowSubscriber(AtomicInteger emitted) {
+            this.emitted = emitted;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(Map.Entry<String, String> item) {
+            result.put(item.getKey(), item.getValue());
+            maxLag = Math.max(maxLag, emitted.get() - result.size());
+
+            if (result.size() % 16 == 0) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(null);
+        }
+
+    }
+
+}
@@ -1,4 +1,41 @@
 package de.elomagic.xmltools;
 
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlRootElement;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
 public class XmlReaderTest {
+
+    @XmlRootElement(name = "root")
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class Root {
+        @XmlElement(name = "item")
+        List<String> items;
+    }
+
+    private static final String XML = "<root><item>a</item><item>b</item><item>c</item></root>";
+
+    @Test
+    void testReadWithLimits() throws Exception {
+
+        Root root = XmlReader.read(new ByteArrayInputStream(XML.getBytes(StandardCharsets.UTF_8)), Root.class, new XmlLimits().setMaxElements(4));
+
+        assertEquals(List.of("a", "b", "c"), root.items);
+
+        XmlLimits limits = new XmlLimits().setMaxElements(3);
+        assertThrows(
+                XmlLimitExceededException.class,
+                () -> XmlReader.read(new ByteArrayInputStream(XML.getBytes(StandardCharsets.UTF_8)), Root.class, limits));
+    }
+
 }
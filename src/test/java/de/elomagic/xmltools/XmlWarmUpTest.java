@@ -0,0 +1,31 @@
+package de.elomagic.xmltools;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlRootElement;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class XmlWarmUpTest {
+
+    @XmlRootElement
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class WarmUpDocument {
+        String value = "v";
+    }
+
+    @Test
+    void testWarmUp() throws Exception {
+
+        assertFalse(JaxbContextCache.isCached(WarmUpDocument.class));
+
+        XmlWarmUp.warmUp(WarmUpDocument.class);
+
+        assertTrue(JaxbContextCache.isCached(WarmUpDocument.class));
+        assertTrue(XmlWritePlan.of(WarmUpDocument.class).isPresent());
+    }
+
+}
@@ -0,0 +1,54 @@
+package de.elomagic.xmltools;
+
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Simple benchmark of the compiled write plan against the JAXB marshaller of the cached JAXB context.
+ * <p>
+ * Both writers are measured alternately in several rounds and the median is reported.
+ * <p>
+ * Not executed by the test phase. Run it with <code>mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=de.elomagic.xmltools.XmlWriterBenchmark</code> or from the IDE.
+ */
+public class XmlWriterBenchmark {
+
+    private static final int WARM_UP_ITERATIONS = 20_000;
+    private static final int ITERATIONS = 20_000;
+    private static final int ROUNDS = 9;
+
+    private interface WriteAction {
+        void write(Writer writer, Object o) throws Exception;
+    }
+
+    private static long measure(WriteAction action, Object o, int iterations) throws Exception {
+        Writer writer = Writer.nullWriter();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            action.write(writer, o);
+        }
+        return System.nanoTime() - start;
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        XmlWriterTest.OrderDocument document = new XmlWriterTest.OrderDocument();
+
+        measure(XmlWriter::write, document, WARM_UP_ITERATIONS);
+        measure(XmlWriter::writeCompiled, document, WARM_UP_ITERATIONS);
+
+        long[] jaxb = new long[ROUNDS];
+        long[] compiled = new long[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            jaxb[i] = measure(XmlWriter::write, document, ITERATIONS);
+            compiled[i] = measure(XmlWriter::writeCompiled, document, ITERATIONS);
+        }
+
+        Arrays.sort(jaxb);
+        Arrays.sort(compiled);
+
+        System.out.printf("JAXB:     %,d ns/op%n", jaxb[ROUNDS / 2] / ITERATIONS);
+        System.out.printf("Compiled: %,d ns/op%n", compiled[ROUNDS / 2] / ITERATIONS);
+    }
+
+}
@@ -1,4 +1,124 @@
 package de.elomagic.xmltools;
 
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlAttribute;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import jakarta.xml.bind.annotation.XmlTransient;
+import jakarta.xml.bind.annotation.XmlType;
+
+import de.elomagic.xmltools.ordered.OrderedDocument;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 public class XmlWriterTest {
+
+    public enum Status {
+        ACTIVE,
+        INACTIVE
+    }
+
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class Position {
+        @XmlAttribute
+        String sku = "a&\"<b>";
+        @XmlAttribute(name = "qty")
+        int quantity = 2;
+        Double price = 1.5;
+        String note;
+    }
+
+    @XmlRootElement
+    @XmlAccessorType(XmlAccessType.FIELD)
+    @XmlType(propOrder = {"status", "text", "positions", "tags", "amount", "ratio", "empty", "flag", "count", "last"})
+    public static class OrderDocument {
+        @XmlAttribute
+        long id = 42;
+        String text = "x < y && z > \"q\"\n";
+        int count = -7;
+        double amount = 1.0E10;
+        float ratio = Float.NaN;
+        boolean flag = true;
+        Status status = Status.INACTIVE;
+        String empty = "";
+        List<Position> positions = new ArrayList<>(List.of(new Position(), new Position()));
+        List<String> tags = List.of("one", "two");
+        @XmlElement(name = "lastPosition")
+        Position last = new Position();
+        @XmlTransient
+        String ignored = "ignored";
+    }
+
+    @XmlRootElement(name = "simple")
+    public static class Unsupported {
+        private String value = "v";
+
+        public String getValue() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+    }
+
+    private static String write(Object o) throws Exception {
+        StringWriter writer = new StringWriter();
+        XmlWriter.write(writer, o);
+        return writer.toString();
+    }
+
+    private static String writeCompiled(Object o) throws Exception {
+        StringWriter writer = new StringWriter();
+        XmlWriter.writeCompiled(writer, o);
+        return writer.toString();
+    }
+
+    @Test
+    void testWriteCompiled() throws Exception {
+
+        OrderDocument document = new OrderDocument();
+
+        assertTrue(XmlWritePlan.of(OrderDocument.class).isPresent());
+        assertEquals(write(document), writeCompiled(document));
+
+        document.last.sku = null;
+        document.last.price = null;
+        document.positions.get(1).note = "note";
+        document.text = null;
+
+        assertEquals(write(document), writeCompiled(document));
+
+        document.tags = Arrays.asList("a", null, "b");
+        document.positions.add(1, null);
+
+        assertEquals(write(document), writeCompiled(document));
+    }
+
+    @Test
+    void testWriteCompiledFallback() throws Exception {
+
+        Unsupported o = new Unsupported();
+
+        assertFalse(XmlWritePlan.of(Unsupported.class).isPresent());
+        assertEquals(write(o), writeCompiled(o));
+
+        // JAXB annotation on the package
+        OrderedDocument ordered = new OrderedDocument();
+
+        assertFalse(XmlWritePlan.of(OrderedDocument.class).isPresent());
+        assertTrue(write(ordered).contains("<alpha>a</alpha>\n    <zeta>z</zeta>"));
+        assertEquals(write(ordered), writeCompiled(ordered));
+    }
+
 }
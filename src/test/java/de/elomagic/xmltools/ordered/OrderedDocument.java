@@ -0,0 +1,15 @@
+package de.elomagic.xmltools.ordered;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Document of a package whose elements are ordered alphabetically by a package annotation.
+ */
+@XmlRootElement
+@XmlAccessorType(XmlAccessType.FIELD)
+public class OrderedDocument {
+    String zeta = "z";
+    String alpha = "a";
+}
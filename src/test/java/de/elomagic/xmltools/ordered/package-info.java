@@ -0,0 +1,5 @@
+@XmlAccessorOrder(XmlAccessOrder.ALPHABETICAL)
+package de.elomagic.xmltools.ordered;
+
+import jakarta.xml.bind.annotation.XmlAccessOrder;
+import jakarta.xml.bind.annotation.XmlAccessorOrder;